@@ -0,0 +1,31 @@
+package benchmark;
+
+import engine.command.CommandFailure;
+import engine.command.CommandSender;
+import engine.permission.HashPermissible;
+
+/**
+ * Sender which drops every message, failures are counted so a benchmark can notice a wrong setup.
+ */
+public class BenchmarkSender extends HashPermissible implements CommandSender {
+
+    private int failures;
+
+    @Override
+    public String getSenderName() {
+        return "benchmark";
+    }
+
+    @Override
+    public void sendMessage(String message) {
+    }
+
+    @Override
+    public void sendCommandFailure(CommandFailure failure) {
+        failures++;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+}
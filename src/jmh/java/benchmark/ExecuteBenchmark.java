@@ -0,0 +1,96 @@
+package benchmark;
+
+import benchmark.Handlers.ArgType;
+import engine.command.impl.SimpleCommandManager;
+import engine.command.util.asm.InvokerMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code BaseCommandManager.execute} on the same command implemented as
+ * {@code SimpleCommand}, {@code MethodAnnotationCommand} and {@code ClassAnnotationCommand},
+ * and {@code executeBatch} per line.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecuteBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"simple", "method", "class"})
+    public String commandType;
+
+    @Param({"1", "4"})
+    public int depth;
+
+    @Param({"1", "4"})
+    public int overloads;
+
+    @Param({"STRING", "INT", "ENUM"})
+    public ArgType argType;
+
+    @Param("REFLECTION")
+    public InvokerMode invokerMode;
+
+    @Param("false")
+    public boolean compile;
+
+    private SimpleCommandManager commandManager;
+    private BenchmarkSender sender;
+    private String commandLine;
+    private String[] args;
+    private List<String> batchLines;
+
+    @Setup
+    public void setup() {
+        commandManager = new SimpleCommandManager();
+        sender = new BenchmarkSender();
+        ArgType[] types = argType.overloads(overloads);
+        switch (commandType) {
+            case "simple":
+                Handlers.registerSimple(commandManager);
+                break;
+            case "method":
+                Handlers.registerMethod(commandManager, types, invokerMode, compile);
+                break;
+            case "class":
+                Handlers.registerClass(commandManager, types, compile);
+                break;
+            default:
+                throw new IllegalArgumentException("command type: " + commandType);
+        }
+        args = Handlers.args(argType, depth);
+        commandLine = Handlers.NAME + " " + String.join(" ", args);
+        batchLines = Collections.nCopies(BATCH_SIZE, commandLine);
+
+        int executed = Handlers.executed;
+        commandManager.execute(sender, commandLine);
+        if (Handlers.executed != executed + 1 || sender.getFailures() != 0)
+            throw new IllegalStateException("\"" + commandLine + "\" was not executed");
+    }
+
+    @Benchmark
+    public int executeLine() {
+        commandManager.execute(sender, commandLine);
+        return Handlers.executed;
+    }
+
+    @Benchmark
+    public int executeArgs() {
+        commandManager.execute(sender, Handlers.NAME, args);
+        return Handlers.executed;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int executeBatch() {
+        return commandManager.executeBatch(sender, batchLines).getSuccessCount();
+    }
+}
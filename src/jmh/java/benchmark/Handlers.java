@@ -0,0 +1,229 @@
+package benchmark;
+
+import engine.command.CommandManager;
+import engine.command.anno.ClassAnnotationCommand;
+import engine.command.anno.Command;
+import engine.command.anno.MethodAnnotationCommand;
+import engine.command.simple.SimpleCommand;
+import engine.command.util.asm.InvokerMode;
+
+import java.util.function.Supplier;
+
+/**
+ * Command handlers shared by the command benchmarks.
+ * <p>
+ * Every command is named {@link #NAME} and takes 1 or 4 arguments of one {@link ArgType},
+ * registering several arg types under the same name adds overloads which the parser has to try.
+ */
+public final class Handlers {
+
+    public static final String NAME = "bench";
+
+    public static int executed;
+
+    private Handlers() {
+    }
+
+    public enum BenchEnum {
+        STOP, START, RUNNING, END
+    }
+
+    public enum ArgType {
+        STRING("abc", new StringMethods(), StringClass1::new, StringClass4::new),
+        INT("42", new IntMethods(), IntClass1::new, IntClass4::new),
+        ENUM("RUNNING", new EnumMethods(), EnumClass1::new, EnumClass4::new),
+        BOOLEAN("true", new BooleanMethods(), BooleanClass1::new, BooleanClass4::new);
+
+        private final String value;
+        private final Object methodHandler;
+        private final Supplier<Runnable> class1;
+        private final Supplier<Runnable> class4;
+
+        ArgType(String value, Object methodHandler, Supplier<Runnable> class1, Supplier<Runnable> class4) {
+            this.value = value;
+            this.methodHandler = methodHandler;
+            this.class1 = class1;
+            this.class4 = class4;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * Arg types registered for the given overload count, starting with this one.
+         */
+        public ArgType[] overloads(int count) {
+            ArgType[] types = new ArgType[Math.min(count, values().length)];
+            types[0] = this;
+            int i = 1;
+            for (ArgType type : values()) {
+                if (type != this && i < types.length)
+                    types[i++] = type;
+            }
+            return types;
+        }
+    }
+
+    public static String[] args(ArgType type, int depth) {
+        String[] args = new String[depth];
+        for (int i = 0; i < depth; i++) {
+            args[i] = type.value;
+        }
+        return args;
+    }
+
+    public static void registerSimple(CommandManager commandManager) {
+        commandManager.registerCommand(new SimpleCommand(NAME, (sender, command, args) -> {
+            for (String arg : args) {
+                if (arg.isEmpty())
+                    return;
+            }
+            executed++;
+        }));
+    }
+
+    public static void registerMethod(CommandManager commandManager, ArgType[] types, InvokerMode invokerMode, boolean compile) {
+        //同一个builder里的多个handler会各自创建命令, 分开注册才会合并到同一个命令
+        for (ArgType type : types) {
+            MethodAnnotationCommand.getBuilder(commandManager)
+                    .setInvokerMode(invokerMode)
+                    .setCompile(compile)
+                    .addCommandHandler(type.methodHandler)
+                    .register();
+        }
+    }
+
+    public static void registerClass(CommandManager commandManager, ArgType[] types, boolean compile) {
+        for (ArgType type : types) {
+            ClassAnnotationCommand.getBuilder(commandManager)
+                    .setCompile(compile)
+                    .caseCommand(NAME, type.class1.get())
+                    .register();
+            ClassAnnotationCommand.getBuilder(commandManager)
+                    .setCompile(compile)
+                    .caseCommand(NAME, type.class4.get())
+                    .register();
+        }
+    }
+
+    public static class StringMethods {
+        @Command(NAME)
+        public void bench(String a) {
+            executed++;
+        }
+
+        @Command(NAME)
+        public void bench(String a, String b, String c, String d) {
+            executed++;
+        }
+    }
+
+    public static class IntMethods {
+        @Command(NAME)
+        public void bench(int a) {
+            executed++;
+        }
+
+        @Command(NAME)
+        public void bench(int a, int b, int c, int d) {
+            executed++;
+        }
+    }
+
+    public static class EnumMethods {
+        @Command(NAME)
+        public void bench(BenchEnum a) {
+            executed++;
+        }
+
+        @Command(NAME)
+        public void bench(BenchEnum a, BenchEnum b, BenchEnum c, BenchEnum d) {
+            executed++;
+        }
+    }
+
+    public static class BooleanMethods {
+        @Command(NAME)
+        public void bench(boolean a) {
+            executed++;
+        }
+
+        @Command(NAME)
+        public void bench(boolean a, boolean b, boolean c, boolean d) {
+            executed++;
+        }
+    }
+
+    public static class StringClass1 implements Runnable {
+        public String a;
+
+        @Override
+        public void run() {
+            executed++;
+        }
+    }
+
+    public static class StringClass4 implements Runnable {
+        public String a, b, c, d;
+
+        @Override
+        public void run() {
+            executed++;
+        }
+    }
+
+    public static class IntClass1 implements Runnable {
+        public int a;
+
+        @Override
+        public void run() {
+            executed++;
+        }
+    }
+
+    public static class IntClass4 implements Runnable {
+        public int a, b, c, d;
+
+        @Override
+        public void run() {
+            executed++;
+        }
+    }
+
+    public static class EnumClass1 implements Runnable {
+        public BenchEnum a;
+
+        @Override
+        public void run() {
+            executed++;
+        }
+    }
+
+    public static class EnumClass4 implements Runnable {
+        public BenchEnum a, b, c, d;
+
+        @Override
+        public void run() {
+            executed++;
+        }
+    }
+
+    public static class BooleanClass1 implements Runnable {
+        public boolean a;
+
+        @Override
+        public void run() {
+            executed++;
+        }
+    }
+
+    public static class BooleanClass4 implements Runnable {
+        public boolean a, b, c, d;
+
+        @Override
+        public void run() {
+            executed++;
+        }
+    }
+}
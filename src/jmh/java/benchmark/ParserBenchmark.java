@@ -0,0 +1,50 @@
+package benchmark;
+
+import engine.command.CommandParser;
+import engine.command.impl.DefaultCommandParser;
+import engine.command.util.CommandTokens;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int args;
+
+    @Param({"false", "true"})
+    public boolean quoted;
+
+    private final DefaultCommandParser parser = new DefaultCommandParser();
+    private final CommandTokens tokens = new CommandTokens();
+    private String command;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("/bench");
+        for (int i = 0; i < args; i++) {
+            sb.append(' ');
+            if (quoted)
+                sb.append("\"arg ").append(i).append('"');
+            else
+                sb.append("arg").append(i);
+        }
+        command = sb.toString();
+    }
+
+    @Benchmark
+    public CommandParser.Result parse() {
+        return parser.parse(command);
+    }
+
+    @Benchmark
+    public CommandTokens tokenize() {
+        return parser.tokenize(command, tokens);
+    }
+}
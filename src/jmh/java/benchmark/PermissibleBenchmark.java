@@ -0,0 +1,83 @@
+package benchmark;
+
+import engine.permission.HashPermissible;
+import engine.permission.Permissible;
+import engine.permission.TriePermissible;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissibleBenchmark {
+
+    @Param({"hash", "trie"})
+    public String implementation;
+
+    @Param({"100", "1000"})
+    public int permissions;
+
+    @Param({"2", "5"})
+    public int depth;
+
+    private Permissible permissible;
+
+    private String[] exact;
+    private String[] inherited;
+    private String[] missing;
+
+    @Setup
+    public void setup() {
+        permissible = implementation.equals("hash") ? new HashPermissible() : new TriePermissible();
+        exact = new String[permissions];
+        inherited = new String[permissions];
+        missing = new String[permissions];
+        for (int i = 0; i < permissions; i++) {
+            StringBuilder sb = new StringBuilder("plugin").append(i % 10);
+            for (int j = 1; j < depth; j++) {
+                sb.append(".node").append(i).append('_').append(j);
+            }
+            exact[i] = sb.toString();
+            inherited[i] = exact[i] + ".child.leaf";
+            missing[i] = "missing" + i + ".child";
+            permissible.setPermission(exact[i], i % 3 != 0);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int exact() {
+        return count(exact);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int inherited() {
+        return count(inherited);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int missing() {
+        return count(missing);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int inheritedContended() {
+        return count(inherited);
+    }
+
+    private int count(String[] permissions) {
+        int count = 0;
+        for (String permission : permissions) {
+            if (permissible.hasPermission(permission))
+                count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,65 @@
+package benchmark;
+
+import engine.permission.HashPermissible;
+import engine.permission.Permissible;
+import engine.permission.PermissionExpression;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionExpressionBenchmark {
+
+    @Param({"single", "or", "and", "nested"})
+    public String shape;
+
+    private static final String[] EXPRESSIONS = {
+            "player.admin",
+            "player.admin | player.moderator | player.location",
+            "player.location & player.teleport & !player.muted",
+            "(player.admin | player.moderator) & !player.muted | player.location & (player.teleport | player.fly)"
+    };
+
+    private Permissible permissible;
+    private String expression;
+    private PermissionExpression compiled;
+
+    @Setup
+    public void setup() {
+        permissible = new HashPermissible();
+        permissible.setPermission("player.location", true);
+        permissible.setPermission("player.teleport", true);
+        switch (shape) {
+            case "single":
+                expression = EXPRESSIONS[0];
+                break;
+            case "or":
+                expression = EXPRESSIONS[1];
+                break;
+            case "and":
+                expression = EXPRESSIONS[2];
+                break;
+            case "nested":
+                expression = EXPRESSIONS[3];
+                break;
+            default:
+                throw new IllegalArgumentException("shape: " + shape);
+        }
+        compiled = PermissionExpression.compile(expression);
+    }
+
+    @Benchmark
+    public boolean test() {
+        return compiled.test(permissible);
+    }
+
+    @Benchmark
+    public boolean compileAndTest() {
+        return PermissionExpression.compile(expression).test(permissible);
+    }
+}
@@ -0,0 +1,114 @@
+package benchmark;
+
+import benchmark.Handlers.ArgType;
+import engine.command.ArgumentCheckResult;
+import engine.command.CommandAnalysis;
+import engine.command.CompletionSession;
+import engine.command.impl.SimpleCommandManager;
+import engine.command.suggestion.SuggestionCache;
+import engine.command.util.asm.InvokerMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * complete, getTips and checkLastArgument on a {@code MethodAnnotationCommand} while the last argument is being typed,
+ * separately, combined by {@code analyze} and with a {@link CompletionSession}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SuggestBenchmark {
+
+    @Param({"1", "4"})
+    public int depth;
+
+    @Param({"1", "4"})
+    public int overloads;
+
+    @Param({"STRING", "INT", "ENUM"})
+    public ArgType argType;
+
+    @Param("false")
+    public boolean cached;
+
+    private SimpleCommandManager commandManager;
+    private BenchmarkSender sender;
+    private String partialLine;
+    private String[] partialArgs;
+    private String[] typedLines;
+    private CompletionSession session;
+    private int typed;
+
+    @Setup
+    public void setup() {
+        commandManager = new SimpleCommandManager();
+        sender = new BenchmarkSender();
+        if (cached)
+            commandManager.setSuggestionCache(new SuggestionCache(10_000, Duration.ofMinutes(10)));
+        Handlers.registerMethod(commandManager, argType.overloads(overloads), InvokerMode.REFLECTION, false);
+        String[] args = Handlers.args(argType, depth);
+        String last = args[depth - 1];
+        args[depth - 1] = last.substring(0, 1);
+        partialArgs = args.clone();
+        partialLine = Handlers.NAME + " " + String.join(" ", args);
+        //逐字输入最后一个参数
+        typedLines = new String[last.length()];
+        for (int i = 0; i < last.length(); i++) {
+            args[depth - 1] = last.substring(0, i + 1);
+            typedLines[i] = Handlers.NAME + " " + String.join(" ", args);
+        }
+        session = commandManager.createCompletionSession(sender);
+    }
+
+    @Benchmark
+    public List<String> complete() {
+        return commandManager.complete(sender, partialLine);
+    }
+
+    @Benchmark
+    public List<String> completeArgs() {
+        return commandManager.complete(sender, Handlers.NAME, partialArgs);
+    }
+
+    @Benchmark
+    public List<String> getTips() {
+        return commandManager.getTips(sender, partialLine);
+    }
+
+    @Benchmark
+    public ArgumentCheckResult checkLastArgument() {
+        return commandManager.checkLastArgument(sender, partialLine);
+    }
+
+    @Benchmark
+    public CommandAnalysis analyze() {
+        return commandManager.analyze(sender, partialLine);
+    }
+
+    @Benchmark
+    public List<String> sessionComplete() {
+        return session.complete(nextTypedLine());
+    }
+
+    @Benchmark
+    public List<String> sessionGetTips() {
+        return session.getTips(nextTypedLine());
+    }
+
+    private String nextTypedLine() {
+        String line = typedLines[typed];
+        typed = (typed + 1) % typedLines.length;
+        return line;
+    }
+
+    @Benchmark
+    public List<String> completeCommandName() {
+        return commandManager.complete(sender, "be");
+    }
+}
@@ -1,38 +1,190 @@
 package engine.command;
 
+import engine.command.metrics.CommandMetrics;
+import engine.command.suggestion.SuggestionCache;
+import engine.command.util.CommandExecutors;
+
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class BaseCommandManager implements CommandManager {
 
-    private final Map<String, Command> commands = new HashMap<>();
+    private static final String[] EMPTY_ARGS = new String[0];
+    private static final CommandListener[] NO_LISTENERS = new CommandListener[0];
+    private static final String THROTTLED_MESSAGE = "Too many requests, please try again later"; // TODO: L10n
+
+    /**
+     * Immutable snapshot, replaced as a whole on every change so reads need no lock.
+     */
+    private volatile Registry registry = new Registry(Map.of());
     private final CommandParser parser = createCommandParser();
     private final CommandExceptionHandler exceptionHandler = createExceptionHandler();
+    private volatile Executor asyncExecutor;
+    private volatile Executor syncExecutor = Runnable::run;
+    private volatile SuggestionCache suggestionCache;
+    private volatile CommandMetrics metrics;
+    private volatile CommandRateLimiter rateLimiter;
+    //写时复制, 没有监听器时执行路径不分配对象
+    private volatile CommandListener[] listeners = NO_LISTENERS;
+    //命令或节点树变化时增加, 用于使CompletionSession失效
+    private final AtomicLong modCount = new AtomicLong();
 
     protected abstract CommandParser createCommandParser();
 
     protected abstract CommandExceptionHandler createExceptionHandler();
 
+    /**
+     * Executor for {@link engine.command.anno.AsyncSafe} handlers of {@link #executeAsync(CommandSender, String)},
+     * created on first use by {@link CommandExecutors#newDefaultExecutor()} if not set.
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = Objects.requireNonNull(asyncExecutor);
+    }
+
+    public Executor getAsyncExecutor() {
+        Executor executor = asyncExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = asyncExecutor;
+                if (executor == null)
+                    asyncExecutor = executor = CommandExecutors.newDefaultExecutor();
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Executor for main thread only handlers of {@link #executeAsync(CommandSender, String)},
+     * by default they run on the calling thread.
+     */
+    public void setSyncExecutor(Executor syncExecutor) {
+        this.syncExecutor = Objects.requireNonNull(syncExecutor);
+    }
+
+    public Executor getSyncExecutor() {
+        return syncExecutor;
+    }
+
+    /**
+     * Caches suggestions of {@link #complete(CommandSender, String, String...)}, null disables caching.
+     */
+    public void setSuggestionCache(SuggestionCache suggestionCache) {
+        this.suggestionCache = suggestionCache;
+    }
+
+    public SuggestionCache getSuggestionCache() {
+        return suggestionCache;
+    }
+
+    /**
+     * Receives parse, handler and suggestion timings of every command, null disables recording.
+     */
+    public void setMetrics(CommandMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Throttles executions and suggestion requests of every sender, null disables rate limiting.
+     * Batches and scripts take one execution per line.
+     */
+    public void setRateLimiter(CommandRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public CommandRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * @return 0 if the request is allowed, otherwise the nanos until it would be
+     */
+    long throttle(CommandSender sender, Command command, CommandRateLimiter.Budget budget) {
+        CommandRateLimiter rateLimiter = this.rateLimiter;
+        return rateLimiter == null ? 0 : rateLimiter.tryAcquire(sender, budget, command.getCost());
+    }
+
+    /**
+     * Adds a listener receiving the hooks of every command, post-parse and pre-permission only from commands overriding
+     * {@link Command#prepare(CommandSender, String[], CommandListener[])}.
+     */
+    public synchronized void addListener(CommandListener listener) {
+        CommandListener[] listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        listeners[listeners.length - 1] = Objects.requireNonNull(listener);
+        this.listeners = listeners;
+    }
+
+    public synchronized void removeListener(CommandListener listener) {
+        List<CommandListener> listeners = new ArrayList<>(Arrays.asList(this.listeners));
+        if (listeners.remove(listener))
+            this.listeners = listeners.toArray(NO_LISTENERS);
+    }
+
+    /**
+     * Creates a session which reuses the parse of the previous line, use one per console or connection.
+     */
+    public CompletionSession createCompletionSession(CommandSender sender) {
+        return new CompletionSession(this, sender);
+    }
+
+    CommandParser getParser() {
+        return parser;
+    }
+
+    CommandExceptionHandler getExceptionHandler() {
+        return exceptionHandler;
+    }
+
+    long getModCount() {
+        return modCount.get();
+    }
+
     @Override
     public void registerCommand(Command command) {
-        if (hasCommand(command.getName()))
-            throw new RuntimeException("Command \"" + command.getName() + "\" already exists");
-        commands.put(command.getName().toLowerCase(), command);
+        registerAll(List.of(command));
+    }
+
+    @Override
+    public void registerAll(Collection<? extends Command> commands) {
+        replaceAll(List.of(), commands);
+    }
+
+    @Override
+    public synchronized void replaceAll(Collection<? extends Command> replaced, Collection<? extends Command> commands) {
+        Map<String, Command> newCommands = new HashMap<>(registry.commands);
+        for (Command command : replaced) {
+            //被替换的命令在此期间被注销或替换时不能覆盖, Command.equals只比较名字和描述
+            if (newCommands.remove(command.getName().toLowerCase()) != command)
+                throw new ConcurrentModificationException("Command \"" + command.getName() + "\" was modified while replacing");
+        }
+        for (Command command : commands) {
+            if (newCommands.putIfAbsent(command.getName().toLowerCase(), command) != null)
+                throw new RuntimeException("Command \"" + command.getName() + "\" already exists");
+        }
+        registry = new Registry(newCommands);
+        invalidateSuggestions();
     }
 
     @Override
     public Collection<Command> registeredCommands() {
-        return commands.values();
+        return registry.commands.values();
     }
 
     @Override
     public Optional<Command> getCommand(String name) {
-        return Optional.ofNullable(commands.get(name.toLowerCase()));
+        return Optional.ofNullable(registry.get(name));
     }
 
     @Override
     public boolean hasCommand(String name) {
-        return commands.containsKey(name.toLowerCase());
+        return registry.get(name) != null;
     }
 
     @Override
@@ -43,18 +195,260 @@ public abstract class BaseCommandManager implements CommandManager {
 
     @Override
     public void execute(CommandSender sender, String name, String... args) {
-        Command command = commands.get(name.toLowerCase());
-        if (command == null) {
-            sender.sendCommandFailure(new CommandFailure(CommandFailure.Type.COMMAND_NOT_FOUND, sender, name, args));
+        Command command = registry.get(name);
+        //没有指标, 限流和监听器时直接执行, 不分配CommandResult
+        if (command == null || metrics != null || rateLimiter != null || listeners.length != 0) {
+            execute(sender, name, command, args, new CommandResult(), true);
             return;
         }
         try {
-            command.execute(sender, args != null ? args : new String[0]);
+            command.execute(sender, args != null ? args : EMPTY_ARGS);
         } catch (Exception e) {
             exceptionHandler.handleOnExecuting(e);
         }
     }
 
+    @Override
+    public CommandResult execute(CommandSender sender, String command, CommandResult result) {
+        CommandParser.Result parsedCommand = parser.parse(command);
+        return execute(sender, parsedCommand.getName(), parsedCommand.getArgs(), result);
+    }
+
+    @Override
+    public CommandResult execute(CommandSender sender, String name, String[] args, CommandResult result) {
+        return execute(sender, name, registry.get(name), args, result, false);
+    }
+
+    @Override
+    public CommandBatchResult executeBatch(CommandSender sender, Iterable<String> lines) {
+        long start = System.nanoTime();
+        CommandBatchResult batchResult = new CommandBatchResult();
+        CommandResult result = new CommandResult();
+        Registry registry = this.registry;
+        //连续执行同一命令时只查找一次
+        String lastName = null;
+        Command lastCommand = null;
+        for (String line : lines) {
+            CommandParser.Result parsedCommand = parser.parse(line);
+            String name = parsedCommand.getName();
+            if (!name.equals(lastName)) {
+                lastCommand = registry.get(name);
+                lastName = name;
+            }
+            batchResult.add(execute(sender, name, lastCommand, parsedCommand.getArgs(), result, false));
+        }
+        batchResult.setElapsedNanos(System.nanoTime() - start);
+        return batchResult;
+    }
+
+    /**
+     * Executes the command on the calling thread, failures are sent to the sender if notify.
+     * Same pipeline as {@link #prepare(CommandSender, String, Command, String[], CommandResult, boolean)}
+     * followed by {@link #invoke(CommandSender, CommandExecution, CommandResult)}.
+     */
+    CommandResult execute(CommandSender sender, String name, Command command, String[] args, CommandResult result, boolean notify) {
+        long start = System.nanoTime();
+        if (args == null)
+            args = EMPTY_ARGS;
+        if (!admit(sender, name, command, args, result, notify))
+            return result;
+        //解析和调用留在同一个方法中, 调用prepare会让CommandExecution逃逸
+        CommandListener[] listeners = this.listeners;
+        CommandExecution execution;
+        try {
+            firePreParse(listeners, sender, command, args);
+            execution = command.prepare(sender, args, listeners);
+        } catch (Exception e) {
+            return fail(e, result, start);
+        }
+        if (!prepared(sender, command, args, execution, result, start, notify))
+            return result;
+        return invoke(listeners, sender, execution, result);
+    }
+
+    /**
+     * Throttles and prepares the command on the calling thread, failures are sent to the sender if notify.
+     * A result completed here is already recorded in the metrics.
+     *
+     * @param command the command registered under the name, may be null
+     * @return the execution to pass to {@link #invoke(CommandSender, CommandExecution, CommandResult)} on any thread,
+     * or null if the result is complete
+     */
+    CommandExecution prepare(CommandSender sender, String name, Command command, String[] args, CommandResult result, boolean notify) {
+        long start = System.nanoTime();
+        if (args == null)
+            args = EMPTY_ARGS;
+        if (!admit(sender, name, command, args, result, notify))
+            return null;
+        CommandListener[] listeners = this.listeners;
+        CommandExecution execution;
+        try {
+            firePreParse(listeners, sender, command, args);
+            execution = command.prepare(sender, args, listeners);
+        } catch (Exception e) {
+            fail(e, result, start);
+            return null;
+        }
+        return prepared(sender, command, args, execution, result, start, notify) ? execution : null;
+    }
+
+    /**
+     * Invokes an execution returned by {@link #prepare(CommandSender, String, Command, String[], CommandResult, boolean)}.
+     *
+     * @return the completed result
+     */
+    CommandResult invoke(CommandSender sender, CommandExecution execution, CommandResult result) {
+        return invoke(listeners, sender, execution, result);
+    }
+
+    /**
+     * Resets the result and checks whether the command exists and the sender may execute it.
+     *
+     * @return false if the result is complete
+     */
+    private boolean admit(CommandSender sender, String name, Command command, String[] args, CommandResult result, boolean notify) {
+        result.reset().setCommand(command);
+        if (command == null) {
+            if (notify)
+                sender.sendCommandFailure(new CommandFailure(CommandFailure.Type.COMMAND_NOT_FOUND, sender, name, args));
+            result.setFailure(CommandFailure.Type.COMMAND_NOT_FOUND);
+            record(result);
+            return false;
+        }
+        long throttled = throttle(sender, command, CommandRateLimiter.Budget.EXECUTE);
+        if (throttled != 0) {
+            if (notify)
+                sender.sendCommandFailure(new CommandFailure(CommandFailure.Type.THROTTLED, sender, command, args, Duration.ofNanos(throttled)));
+            result.setFailure(CommandFailure.Type.THROTTLED);
+            record(result);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the execution failed and the result is complete
+     */
+    private boolean prepared(CommandSender sender, Command command, String[] args, CommandExecution execution, CommandResult result,
+                             long start, boolean notify) {
+        result.set(command, execution);
+        result.setTimings(System.nanoTime() - start, 0);
+        if (execution.isSuccess())
+            return true;
+        if (notify)
+            sender.sendCommandFailure(execution.toFailure(sender, command, args));
+        record(result);
+        return false;
+    }
+
+    private CommandResult fail(Exception e, CommandResult result, long start) {
+        exceptionHandler.handleOnExecuting(e);
+        result.setException(e);
+        result.setTimings(System.nanoTime() - start, 0);
+        record(result);
+        return result;
+    }
+
+    private CommandResult invoke(CommandListener[] listeners, CommandSender sender, CommandExecution execution, CommandResult result) {
+        long start = System.nanoTime();
+        try {
+            result.setValue(invokeHandler(listeners, sender, result.getCommand(), execution));
+        } catch (Exception e) {
+            exceptionHandler.handleOnExecuting(e);
+            result.setException(e);
+        }
+        result.setTimings(result.getParseNanos(), System.nanoTime() - start);
+        record(result);
+        return result;
+    }
+
+    private static void firePreParse(CommandListener[] listeners, CommandSender sender, Command command, String[] args) {
+        for (CommandListener listener : listeners) {
+            listener.onPreParse(sender, command, args);
+        }
+    }
+
+    /**
+     * Invokes the handler between the pre-execute and post-execute hooks.
+     */
+    private static Object invokeHandler(CommandListener[] listeners, CommandSender sender, Command command, CommandExecution execution) {
+        if (listeners.length == 0)
+            return execution.invoke();
+        for (CommandListener listener : listeners) {
+            listener.onPreExecute(sender, command, execution);
+        }
+        Object value;
+        try {
+            value = execution.invoke();
+        } catch (Exception e) {
+            for (CommandListener listener : listeners) {
+                listener.onPostExecute(sender, command, execution, null, e);
+            }
+            throw e;
+        }
+        for (CommandListener listener : listeners) {
+            listener.onPostExecute(sender, command, execution, value, null);
+        }
+        return value;
+    }
+
+    /**
+     * Records the result under the name of its command, results without command under {@link CommandMetrics#UNKNOWN_COMMAND}
+     * so typed names never become keys.
+     */
+    private void record(CommandResult result) {
+        CommandMetrics metrics = this.metrics;
+        if (metrics == null)
+            return;
+        Command command = result.getCommand();
+        metrics.recordExecution(command != null ? command.getName() : CommandMetrics.UNKNOWN_COMMAND, result.getNode(), result.getFailure(),
+                result.getParseNanos(), result.getHandlerNanos());
+    }
+
+    @Override
+    public CompletableFuture<CommandResult> executeAsync(CommandSender sender, String command) {
+        CommandParser.Result parsedCommand = parser.parse(command);
+        return executeAsync(sender, parsedCommand.getName(), parsedCommand.getArgs());
+    }
+
+    @Override
+    public CompletableFuture<CommandResult> executeAsync(CommandSender sender, String name, String... args) {
+        CommandResult result = new CommandResult();
+        CommandExecution execution = prepare(sender, name, registry.get(name), args, result, true);
+        if (execution == null)
+            return CompletableFuture.completedFuture(result);
+
+        try {
+            return invokeAsync(sender, args, execution, result, execution.isAsyncSafe() ? getAsyncExecutor() : syncExecutor, true);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Invokes an execution returned by {@link #prepare(CommandSender, String, Command, String[], CommandResult, boolean)} on the executor.
+     * <p>
+     * If the executor rejects it the result is completed with {@link CommandFailure.Type#REJECTED},
+     * which is recorded and sent to the sender if notify, and the exception is rethrown.
+     *
+     * @return a future of the given result
+     */
+    CompletableFuture<CommandResult> invokeAsync(CommandSender sender, String[] args, CommandExecution execution, CommandResult result,
+                                                 Executor executor, boolean notify) {
+        CompletableFuture<CommandResult> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> future.complete(invoke(sender, execution, result)));
+        } catch (RejectedExecutionException e) {
+            //解析时已经调用了监听器, 拒绝也要通知发送者并计入指标
+            if (notify)
+                sender.sendCommandFailure(new CommandFailure(CommandFailure.Type.REJECTED, sender, result.getCommand(), args, e));
+            result.setFailure(CommandFailure.Type.REJECTED);
+            record(result);
+            throw e;
+        }
+        return future;
+    }
+
     @Override
     public List<String> complete(CommandSender sender, String command) {
         CommandParser.Result result = parser.parse(command);
@@ -63,26 +457,45 @@ public abstract class BaseCommandManager implements CommandManager {
 
     @Override
     public List<String> complete(CommandSender sender, String commandName, String... args) {
-        Command command = commands.get(commandName.toLowerCase());
+        Registry registry = this.registry;
+        Command command = registry.get(commandName);
         if (command == null) {
-            return commands.keySet()
-                    .stream()
-                    .filter(name -> name.startsWith(commandName))
-                    .collect(Collectors.toList());
+            return registry.complete(commandName, Integer.MAX_VALUE);
         }
 
         if (args == null || args.length == 0) {
             return List.of();
         }
 
+        if (throttle(sender, command, CommandRateLimiter.Budget.SUGGEST) != 0)
+            return List.of();
+
         try {
-            return command.suggest(sender, args);
+            CommandMetrics metrics = this.metrics;
+            if (metrics == null)
+                return suggest(command, sender, args);
+            long start = System.nanoTime();
+            List<String> suggestions = suggest(command, sender, args);
+            metrics.recordSuggestion(command.getName(), System.nanoTime() - start);
+            return suggestions;
         } catch (Exception e) {
             exceptionHandler.handleOnSuggesting(e);
             return List.of();
         }
     }
 
+    private List<String> suggest(Command command, CommandSender sender, String[] args) {
+        SuggestionCache suggestionCache = this.suggestionCache;
+        if (suggestionCache != null)
+            return suggestionCache.suggest(command, sender, args, command::suggest);
+        return command.suggest(sender, args);
+    }
+
+    @Override
+    public List<String> completeCommandName(String prefix, int limit) {
+        return registry.complete(prefix, limit);
+    }
+
     @Override
     public List<String> getTips(CommandSender sender, String command) {
         CommandParser.Result result = parser.parse(command);
@@ -93,8 +506,8 @@ public abstract class BaseCommandManager implements CommandManager {
     public List<String> getTips(CommandSender sender, String name, String... args) {
         if (name == null || name.isEmpty())
             return List.of();
-        Command command = commands.get(name.toLowerCase());
-        if (command == null)
+        Command command = registry.get(name);
+        if (command == null || throttle(sender, command, CommandRateLimiter.Budget.SUGGEST) != 0)
             return List.of();
         try {
             return command.getTips(sender, args);
@@ -112,9 +525,11 @@ public abstract class BaseCommandManager implements CommandManager {
 
     @Override
     public ArgumentCheckResult checkLastArgument(CommandSender sender, String name, String... args) {
-        Command command = commands.get(name.toLowerCase());
+        Command command = registry.get(name);
         if (command == null)
             return ArgumentCheckResult.Error("/" + name + "  command not found"); // TODO: L10n
+        if (throttle(sender, command, CommandRateLimiter.Budget.SUGGEST) != 0)
+            return throttledCheck();
         try {
             return command.checkLastArgument(sender, args);
         } catch (Exception e) {
@@ -123,8 +538,121 @@ public abstract class BaseCommandManager implements CommandManager {
         }
     }
 
+    @Override
+    public CommandAnalysis analyze(CommandSender sender, String command) {
+        CommandParser.Result result = parser.parse(command);
+        return analyze(sender, result.getName(), result.getArgs());
+    }
+
+    @Override
+    public CommandAnalysis analyze(CommandSender sender, String name, String... args) {
+        Registry registry = this.registry;
+        Command command = registry.get(name);
+        if (command == null) {
+            return new CommandAnalysis(registry.complete(name, Integer.MAX_VALUE), List.of(),
+                    ArgumentCheckResult.Error("/" + name + "  command not found")); // TODO: L10n
+        }
+        if (throttle(sender, command, CommandRateLimiter.Budget.SUGGEST) != 0)
+            return throttledAnalysis();
+        if (args == null)
+            args = EMPTY_ARGS;
+        ParsedPrefix prefix;
+        try {
+            prefix = command.parsePrefix(sender, args);
+        } catch (Exception e) {
+            exceptionHandler.handleOnSuggesting(e);
+            return new CommandAnalysis(List.of(), List.of(), ArgumentCheckResult.Error("Caught an exception when check last argument")); // TODO: L10n
+        }
+        return analyze(prefix, args);
+    }
+
+    static CommandAnalysis throttledAnalysis() {
+        return new CommandAnalysis(List.of(), List.of(), throttledCheck());
+    }
+
+    static ArgumentCheckResult throttledCheck() {
+        return ArgumentCheckResult.Error(THROTTLED_MESSAGE);
+    }
+
+    CommandAnalysis analyze(ParsedPrefix prefix, String[] args) {
+        List<String> suggestions = List.of();
+        List<String> tips = List.of();
+        ArgumentCheckResult argumentCheck = ArgumentCheckResult.Valid();
+        if (args.length != 0) {
+            try {
+                suggestions = prefix.suggest(args);
+            } catch (Exception e) {
+                exceptionHandler.handleOnSuggesting(e);
+            }
+            try {
+                argumentCheck = prefix.checkLastArgument(args);
+            } catch (Exception e) {
+                exceptionHandler.handleOnCheckingArgument(e);
+                argumentCheck = ArgumentCheckResult.Error("Caught an exception when check last argument"); // TODO: L10n
+            }
+        }
+        try {
+            tips = prefix.getTips(args);
+        } catch (Exception e) {
+            exceptionHandler.handleOnGettingTips(e);
+        }
+        return new CommandAnalysis(suggestions, tips, argumentCheck);
+    }
+
+    /**
+     * Drops cached suggestions and completion sessions, call it if commands are modified after registering.
+     */
+    public void invalidateSuggestions() {
+        modCount.incrementAndGet();
+        SuggestionCache suggestionCache = this.suggestionCache;
+        if (suggestionCache != null)
+            suggestionCache.invalidateAll();
+    }
+
     @Override
     public void unregisterCommand(String name) {
-        commands.remove(name);
+        unregisterAll(List.of(name));
+    }
+
+    @Override
+    public synchronized void unregisterAll(Collection<String> names) {
+        Map<String, Command> newCommands = new HashMap<>(registry.commands);
+        for (String name : names) {
+            newCommands.remove(name.toLowerCase());
+        }
+        if (newCommands.size() != registry.commands.size()) {
+            registry = new Registry(newCommands);
+            invalidateSuggestions();
+        }
+    }
+
+    private static final class Registry {
+
+        //key为小写的命令名
+        private final Map<String, Command> commands;
+        //排序后的key,用于前缀补全
+        private final String[] names;
+
+        private Registry(Map<String, Command> commands) {
+            this.commands = Map.copyOf(commands);
+            this.names = this.commands.keySet().toArray(new String[0]);
+            Arrays.sort(names);
+        }
+
+        private Command get(String name) {
+            return commands.get(name.toLowerCase());
+        }
+
+        private List<String> complete(String prefix, int limit) {
+            String lowerPrefix = prefix.toLowerCase();
+            int index = Arrays.binarySearch(names, lowerPrefix);
+            if (index < 0)
+                index = -index - 1;
+            int end = index;
+            while (end < names.length && end - index < limit && names[end].startsWith(lowerPrefix)) {
+                end++;
+            }
+            return List.of(Arrays.copyOfRange(names, index, end));
+        }
     }
 }
@@ -8,6 +8,7 @@ public abstract class Command {
     private final String name;
     private String description;
     private String helpMessage;
+    private int cost = 1;
 
     public Command(String name) {
         this(name, "/" + name);
@@ -25,12 +26,61 @@ public abstract class Command {
 
     public abstract void execute(CommandSender sender, String[] args);
 
+    /**
+     * Does everything of {@link #execute(CommandSender, String[])} but invoking the handler on the calling thread.
+     * Overriding implementations return failures as a failed execution instead of sending them to the sender.
+     * <p>
+     * The default implementation parses nothing ahead, the returned execution calls {@link #execute(CommandSender, String[])}
+     * which reports its own failures to the sender, so they are seen as a successful execution.
+     * Override it if {@link CommandResult} and {@link CommandFailure} types should be accurate for the command.
+     */
+    public CommandExecution prepare(CommandSender sender, String[] args) {
+        return CommandExecution.of(() -> execute(sender, args), false);
+    }
+
+    /**
+     * Same as {@link #prepare(CommandSender, String[])}, also calling {@link CommandListener#onPostParse} and
+     * {@link CommandListener#onPrePermission} of the given listeners. {@link BaseCommandManager} passes its own listeners here.
+     * The default implementation parses nothing ahead, so it calls neither of them.
+     */
+    public CommandExecution prepare(CommandSender sender, String[] args, CommandListener[] listeners) {
+        return prepare(sender, args);
+    }
+
     public abstract List<String> suggest(CommandSender sender, String[] args);
 
     public abstract List<String> getTips(CommandSender sender,String[] args);
 
     public abstract ArgumentCheckResult checkLastArgument(CommandSender sender, String[] args);
 
+    /**
+     * Parses all args but the last one so that {@link CompletionSession} can reuse it while only the last arg changes.
+     * By default nothing is parsed ahead, every call is delegated to this command.
+     */
+    public ParsedPrefix parsePrefix(CommandSender sender, String[] args) {
+        return new ParsedPrefix() {
+            @Override
+            public boolean matches(CommandSender sender1, String[] args1) {
+                return sender1 == sender;
+            }
+
+            @Override
+            public List<String> suggest(String[] args1) {
+                return Command.this.suggest(sender, args1);
+            }
+
+            @Override
+            public List<String> getTips(String[] args1) {
+                return Command.this.getTips(sender, args1);
+            }
+
+            @Override
+            public ArgumentCheckResult checkLastArgument(String[] args1) {
+                return Command.this.checkLastArgument(sender, args1);
+            }
+        };
+    }
+
     public String getName() {
         return name;
     }
@@ -51,6 +101,19 @@ public abstract class Command {
         this.helpMessage = helpMessage;
     }
 
+    /**
+     * @return tokens taken from the sender's budget of a {@link CommandRateLimiter} per request
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    public void setCost(int cost) {
+        if (cost < 1)
+            throw new IllegalArgumentException("cost must be positive: " + cost);
+        this.cost = cost;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,40 @@
+package engine.command;
+
+import java.util.List;
+
+/**
+ * Suggestions, tips and last argument check of one input, see {@link CommandManager#analyze(CommandSender, String)}.
+ */
+public final class CommandAnalysis {
+
+    private final List<String> suggestions;
+    private final List<String> tips;
+    private final ArgumentCheckResult argumentCheck;
+
+    public CommandAnalysis(List<String> suggestions, List<String> tips, ArgumentCheckResult argumentCheck) {
+        this.suggestions = suggestions;
+        this.tips = tips;
+        this.argumentCheck = argumentCheck;
+    }
+
+    public List<String> getSuggestions() {
+        return suggestions;
+    }
+
+    public List<String> getTips() {
+        return tips;
+    }
+
+    public ArgumentCheckResult getArgumentCheck() {
+        return argumentCheck;
+    }
+
+    @Override
+    public String toString() {
+        return "CommandAnalysis{" +
+                "suggestions=" + suggestions +
+                ", tips=" + tips +
+                ", valid=" + argumentCheck.isValid() +
+                '}';
+    }
+}
@@ -0,0 +1,93 @@
+package engine.command;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Outcome of every line of {@link CommandManager#executeBatch(CommandSender, Iterable)}, lines are indexed from 0.
+ */
+public final class CommandBatchResult {
+
+    private static final CommandFailure.Type[] EMPTY = new CommandFailure.Type[0];
+
+    //每行的失败类型, 成功为null
+    private CommandFailure.Type[] failures = EMPTY;
+    private int size;
+    private int failureCount;
+    private final Map<Integer, Exception> exceptions = new HashMap<>();
+    private long elapsedNanos;
+
+    CommandBatchResult() {
+    }
+
+    void add(CommandResult result) {
+        if (size == failures.length)
+            failures = Arrays.copyOf(failures, Math.max(16, size << 1));
+        failures[size] = result.getFailure();
+        if (!result.isSuccess())
+            failureCount++;
+        if (result.getException() != null)
+            exceptions.put(size, result.getException());
+        size++;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return the number of executed lines
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isSuccess() {
+        return failureCount == 0;
+    }
+
+    public boolean isSuccess(int line) {
+        return getFailure(line) == null;
+    }
+
+    /**
+     * @return the failure type of the line, or null if it was executed
+     */
+    public CommandFailure.Type getFailure(int line) {
+        if (line < 0 || line >= size)
+            throw new IndexOutOfBoundsException("line: " + line + ", size: " + size);
+        return failures[line];
+    }
+
+    /**
+     * @return the exception thrown by the line, if the failure is {@link CommandFailure.Type#COMMAND_EXCEPTION}
+     */
+    public Exception getException(int line) {
+        return exceptions.get(line);
+    }
+
+    public int getSuccessCount() {
+        return size - failureCount;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return nanos spent on the whole batch
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "CommandBatchResult{" +
+                "size=" + size +
+                ", failureCount=" + failureCount +
+                ", elapsedNanos=" + elapsedNanos +
+                '}';
+    }
+}
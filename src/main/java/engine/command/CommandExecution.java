@@ -0,0 +1,91 @@
+package engine.command;
+
+import engine.command.util.node.CommandNode;
+
+import java.util.function.Supplier;
+
+/**
+ * A command whose arguments are already parsed, see {@link Command#prepare(CommandSender, String[])}.
+ * Running it only invokes the handler, so it can be passed to another thread.
+ */
+public final class CommandExecution implements Runnable {
+
+    private final CommandFailure.Type failure;
+    private final Object message;
+    private final CommandNode node;
+    private final Supplier<Object> handler;
+    private final boolean asyncSafe;
+
+    private CommandExecution(CommandFailure.Type failure, Object message, CommandNode node, Supplier<Object> handler, boolean asyncSafe) {
+        this.failure = failure;
+        this.message = message;
+        this.node = node;
+        this.handler = handler;
+        this.asyncSafe = asyncSafe;
+    }
+
+    public static CommandExecution of(Runnable handler, boolean asyncSafe) {
+        return new CommandExecution(null, null, null, () -> {
+            handler.run();
+            return null;
+        }, asyncSafe);
+    }
+
+    /**
+     * @param handler returns the value returned by the command handler
+     */
+    public static CommandExecution of(CommandNode node, Supplier<Object> handler, boolean asyncSafe) {
+        return new CommandExecution(null, null, node, handler, asyncSafe);
+    }
+
+    /**
+     * Running a failed execution does nothing.
+     *
+     * @param message message of the {@link CommandFailure}
+     */
+    public static CommandExecution failed(CommandFailure.Type failure, CommandNode node, Object message) {
+        return new CommandExecution(failure, message, node, null, true);
+    }
+
+    @Override
+    public void run() {
+        invoke();
+    }
+
+    /**
+     * @return the value returned by the command handler, null for void handlers and failed executions
+     */
+    public Object invoke() {
+        return handler != null ? handler.get() : null;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    public CommandFailure.Type getFailure() {
+        return failure;
+    }
+
+    public Object getMessage() {
+        return message;
+    }
+
+    /**
+     * @return the matched node, or null if the command is not node based or no node matched
+     */
+    public CommandNode getNode() {
+        return node;
+    }
+
+    /**
+     * @return true if the handler may run on any thread, otherwise it runs on the manager's sync executor
+     */
+    public boolean isAsyncSafe() {
+        return asyncSafe;
+    }
+
+    public CommandFailure toFailure(CommandSender sender, Command command, String[] args) {
+        return new CommandFailure(failure, sender, command, args, message);
+    }
+}
@@ -17,6 +17,19 @@ public final class CommandFailure {
         COMMAND_WRONG_SENDER,
         COMMAND_ILLEGAL_ARGUMENT,
         PERMISSION_NOT_ENOUGH,
+        /**
+         * The handler threw an exception, only used by {@link CommandResult}.
+         */
+        COMMAND_EXCEPTION,
+        /**
+         * The sender ran out of its {@link CommandRateLimiter} budget, the message is the {@link java.time.Duration} until the request would be allowed.
+         */
+        THROTTLED,
+        /**
+         * The executor of {@link CommandManager#executeAsync(CommandSender, String)} rejected the handler, the message is the
+         * {@link java.util.concurrent.RejectedExecutionException}.
+         */
+        REJECTED,
         CUSTOM
     }
 
@@ -0,0 +1,53 @@
+package engine.command;
+
+import engine.command.util.context.LinkedContext;
+import engine.command.util.node.CommandNode;
+
+/**
+ * Hooks around the phases of an execution, every method does nothing by default.
+ * <p>
+ * Listeners added by {@link BaseCommandManager#addListener(CommandListener)} receive every hook of every command,
+ * {@link #onPostParse} and {@link #onPrePermission} only if the command parses ahead, like {@code NodeAnnotationCommand}.
+ * Listeners added by {@code NodeAnnotationCommand.addListener} receive {@link #onPostParse} and {@link #onPrePermission}
+ * of that command after the listeners of the manager. Methods are called on the executing thread, an exception thrown by a listener fails the execution
+ * like an exception thrown by the handler.
+ * When no listener is added, calling the hooks costs one array length check and allocates nothing.
+ */
+public interface CommandListener {
+
+    /**
+     * Called before the args are parsed.
+     */
+    default void onPreParse(CommandSender sender, Command command, String[] args) {
+    }
+
+    /**
+     * Called after the args are parsed.
+     *
+     * @param node    the matched node, may be a node where parsing stopped if the args do not match an executable node
+     * @param context the parsed values, only valid during the call
+     */
+    default void onPostParse(CommandSender sender, Command command, CommandNode node, LinkedContext context) {
+    }
+
+    /**
+     * Called before the permission of the matched node is checked.
+     */
+    default void onPrePermission(CommandSender sender, Command command, CommandNode node) {
+    }
+
+    /**
+     * Called before the handler of a successfully prepared execution runs.
+     */
+    default void onPreExecute(CommandSender sender, Command command, CommandExecution execution) {
+    }
+
+    /**
+     * Called after the handler returned or threw.
+     *
+     * @param value     the value returned by the handler, null for void handlers or if it threw
+     * @param exception the exception thrown by the handler, or null
+     */
+    default void onPostExecute(CommandSender sender, Command command, CommandExecution execution, Object value, Exception exception) {
+    }
+}
@@ -3,13 +3,30 @@ package engine.command;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface CommandManager {
 
     void registerCommand(Command command);
 
+    /**
+     * Registers all commands at once, either every command becomes visible or none does.
+     */
+    void registerAll(Collection<? extends Command> commands);
+
+    /**
+     * Unregisters the replaced commands and registers the commands in one step, like {@link #registerAll(Collection)}.
+     * Used to publish modified copies of registered commands.
+     *
+     * @throws java.util.ConcurrentModificationException if a replaced command is no longer registered
+     */
+    void replaceAll(Collection<? extends Command> replaced, Collection<? extends Command> commands);
+
     void unregisterCommand(String name);
 
+    void unregisterAll(Collection<String> names);
+
     Collection<Command> registeredCommands();
 
     Optional<Command> getCommand(String name);
@@ -20,10 +37,48 @@ public interface CommandManager {
 
     void execute(CommandSender sender, String name, String... args);
 
+    /**
+     * Executes the command and writes the outcome into the result instead of sending failures to the sender.
+     *
+     * @param result reset before executing, so one instance can be reused
+     * @return the given result
+     */
+    CommandResult execute(CommandSender sender, String command, CommandResult result);
+
+    CommandResult execute(CommandSender sender, String name, String[] args, CommandResult result);
+
+    /**
+     * Executes the lines in order on the calling thread like {@link #execute(CommandSender, String, CommandResult)},
+     * failures are not sent to the sender but recorded per line.
+     * Commands are looked up in the commands registered when the batch starts.
+     */
+    CommandBatchResult executeBatch(CommandSender sender, Iterable<String> lines);
+
+    default CommandBatchResult executeBatch(CommandSender sender, Stream<String> lines) {
+        return executeBatch(sender, (Iterable<String>) lines::iterator);
+    }
+
+    /**
+     * Parses the command on the calling thread and runs the handler on an executor.
+     * Failures are sent to the sender and returned in the result.
+     * The future fails with {@link java.util.concurrent.RejectedExecutionException} if the executor is full,
+     * the sender receives a {@link CommandFailure.Type#REJECTED} failure.
+     */
+    CompletableFuture<CommandResult> executeAsync(CommandSender sender, String command);
+
+    CompletableFuture<CommandResult> executeAsync(CommandSender sender, String name, String... args);
+
     List<String> complete(CommandSender sender, String command);
 
     List<String> complete(CommandSender sender, String name, String... args);
 
+    /**
+     * Registered command names starting with the prefix, ignoring case, in alphabetical order.
+     *
+     * @param limit max size of the returned list
+     */
+    List<String> completeCommandName(String prefix, int limit);
+
     List<String> getTips(CommandSender sender, String command);
 
     List<String> getTips(CommandSender sender, String name, String... args);
@@ -31,4 +86,12 @@ public interface CommandManager {
     ArgumentCheckResult checkLastArgument(CommandSender sender, String command);
 
     ArgumentCheckResult checkLastArgument(CommandSender sender, String name, String... args);
+
+    /**
+     * Does {@link #complete(CommandSender, String)}, {@link #getTips(CommandSender, String)}
+     * and {@link #checkLastArgument(CommandSender, String)} with one parse of the input.
+     */
+    CommandAnalysis analyze(CommandSender sender, String command);
+
+    CommandAnalysis analyze(CommandSender sender, String name, String... args);
 }
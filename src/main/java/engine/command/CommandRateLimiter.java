@@ -0,0 +1,128 @@
+package engine.command;
+
+import com.google.common.collect.MapMaker;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Per sender token buckets for {@link BaseCommandManager#setRateLimiter(CommandRateLimiter)}.
+ * <p>
+ * Every sender has one bucket for executions and one for suggestions, tips and argument checks, a request takes
+ * {@link Command#getCost()} tokens. A bucket holds at most its capacity and refills continuously at its rate.
+ * Senders are compared by identity and dropped once they are garbage collected.
+ * <p>
+ * A bucket is a single theoretical arrival time updated by compare and set, acquiring is O(1) and takes no lock
+ * once the sender has buckets.
+ */
+public class CommandRateLimiter {
+
+    public enum Budget {
+        EXECUTE,
+        SUGGEST
+    }
+
+    private final long executeCapacityNanos;
+    private final long executeNanosPerToken;
+    private final long suggestCapacityNanos;
+    private final long suggestNanosPerToken;
+
+    private final ConcurrentMap<CommandSender, Buckets> buckets = new MapMaker().weakKeys().makeMap();
+    private volatile Predicate<CommandSender> exemption = sender -> false;
+
+    /**
+     * @param executeCapacity   the most execute tokens a sender can save up
+     * @param executePerSecond  execute tokens refilled per second
+     * @param suggestCapacity   the most suggest tokens a sender can save up
+     * @param suggestPerSecond  suggest tokens refilled per second
+     */
+    public CommandRateLimiter(int executeCapacity, double executePerSecond, int suggestCapacity, double suggestPerSecond) {
+        this.executeNanosPerToken = nanosPerToken(executePerSecond);
+        this.executeCapacityNanos = capacityNanos(executeCapacity, executeNanosPerToken);
+        this.suggestNanosPerToken = nanosPerToken(suggestPerSecond);
+        this.suggestCapacityNanos = capacityNanos(suggestCapacity, suggestNanosPerToken);
+    }
+
+    private static long nanosPerToken(double perSecond) {
+        if (!(perSecond > 0))
+            throw new IllegalArgumentException("rate must be positive: " + perSecond);
+        return Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+    }
+
+    private static long capacityNanos(int capacity, long nanosPerToken) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        return Math.multiplyExact(capacity, nanosPerToken);
+    }
+
+    /**
+     * Senders matching the predicate are never throttled, e.g. the console replaying a script.
+     */
+    public void setExemption(Predicate<CommandSender> exemption) {
+        this.exemption = Objects.requireNonNull(exemption);
+    }
+
+    /**
+     * Takes the cost from the sender's budget if it has enough tokens.
+     *
+     * A cost above the capacity of the budget is never allowed.
+     *
+     * @return 0 if the tokens were taken, otherwise the nanos until they would be available and nothing is taken
+     */
+    public long tryAcquire(CommandSender sender, Budget budget, int cost) {
+        if (exemption.test(sender))
+            return 0;
+        Buckets buckets = this.buckets.get(sender);
+        if (buckets == null) {
+            Buckets newBuckets = new Buckets(System.nanoTime());
+            buckets = this.buckets.putIfAbsent(sender, newBuckets);
+            if (buckets == null)
+                buckets = newBuckets;
+        }
+        return budget == Budget.EXECUTE
+                ? tryAcquire(buckets.execute, executeNanosPerToken, executeCapacityNanos, cost)
+                : tryAcquire(buckets.suggest, suggestNanosPerToken, suggestCapacityNanos, cost);
+    }
+
+    private static long tryAcquire(AtomicLong bucket, long nanosPerToken, long capacityNanos, int cost) {
+        long costNanos = cost * nanosPerToken;
+        for (;;) {
+            long now = System.nanoTime();
+            long arrival = bucket.get();
+            //arrival早于now时桶已满, 从now开始计算; nanoTime可能为负数, 只比较差值
+            long base = arrival - now > 0 ? arrival : now;
+            long newArrival = base + costNanos;
+            long excess = newArrival - now - capacityNanos;
+            if (excess > 0)
+                return excess;
+            if (bucket.compareAndSet(arrival, newArrival))
+                return 0;
+        }
+    }
+
+    /**
+     * Forgets the buckets of the sender, its next request starts with full budgets.
+     */
+    public void reset(CommandSender sender) {
+        buckets.remove(sender);
+    }
+
+    public void resetAll() {
+        buckets.clear();
+    }
+
+    private static final class Buckets {
+
+        //令牌全部用完的时刻, 不晚于now时桶是满的
+        private final AtomicLong execute;
+        private final AtomicLong suggest;
+
+        private Buckets(long now) {
+            this.execute = new AtomicLong(now);
+            this.suggest = new AtomicLong(now);
+        }
+    }
+}
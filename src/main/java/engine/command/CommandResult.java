@@ -0,0 +1,136 @@
+package engine.command;
+
+import engine.command.util.node.CommandNode;
+
+/**
+ * Outcome of an execution, a null failure type means the command was executed.
+ * <p>
+ * The result is mutable so one instance can be reused for many executions,
+ * see {@link CommandManager#execute(CommandSender, String, CommandResult)}.
+ */
+public class CommandResult {
+
+    private CommandFailure.Type failure;
+    private Command command;
+    private CommandNode node;
+    private long elapsedNanos;
+    private long parseNanos;
+    private long handlerNanos;
+    private Object value;
+    private Exception exception;
+
+    public CommandResult() {
+    }
+
+    public CommandResult reset() {
+        failure = null;
+        command = null;
+        node = null;
+        elapsedNanos = 0;
+        parseNanos = 0;
+        handlerNanos = 0;
+        value = null;
+        exception = null;
+        return this;
+    }
+
+    void set(Command command, CommandExecution execution) {
+        this.command = command;
+        this.failure = execution.getFailure();
+        this.node = execution.getNode();
+    }
+
+    void setCommand(Command command) {
+        this.command = command;
+    }
+
+    void setFailure(CommandFailure.Type failure) {
+        this.failure = failure;
+    }
+
+    void setValue(Object value) {
+        this.value = value;
+    }
+
+    void setException(Exception exception) {
+        this.failure = CommandFailure.Type.COMMAND_EXCEPTION;
+        this.exception = exception;
+    }
+
+    void setTimings(long parseNanos, long handlerNanos) {
+        this.elapsedNanos = parseNanos + handlerNanos;
+        this.parseNanos = parseNanos;
+        this.handlerNanos = handlerNanos;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    /**
+     * @return the failure type, or null if the command was executed
+     */
+    public CommandFailure.Type getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return the executed command, or null if no command was found
+     */
+    public Command getCommand() {
+        return command;
+    }
+
+    /**
+     * @return the matched node, or null if the command is not node based or no node matched
+     */
+    public CommandNode getNode() {
+        return node;
+    }
+
+    /**
+     * @return nanos spent on parsing and running the handler
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return nanos spent on parsing the args and checking the permission
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * @return nanos spent in the handler, 0 if it was not invoked
+     */
+    public long getHandlerNanos() {
+        return handlerNanos;
+    }
+
+    /**
+     * @return the value returned by the handler, null for void handlers
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * @return the exception thrown while executing, if the failure is {@link CommandFailure.Type#COMMAND_EXCEPTION}
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        return "CommandResult{" +
+                "failure=" + failure +
+                ", command=" + (command == null ? null : command.getName()) +
+                ", node=" + node +
+                ", elapsedNanos=" + elapsedNanos +
+                ", value=" + value +
+                '}';
+    }
+}
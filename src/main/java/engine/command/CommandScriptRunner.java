@@ -0,0 +1,322 @@
+package engine.command;
+
+import engine.command.impl.DefaultCommandParser;
+import engine.command.util.CommandTokens;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Executes a command script, one command per line without the leading slash.
+ * Blank lines and lines starting with {@code #} are skipped.
+ * <p>
+ * The file is memory mapped in regions and every line is decoded into one reused buffer and tokenized
+ * with the {@link DefaultCommandParser} grammar, so memory use does not grow with the size of the script.
+ * Failures are reported with their line number, failures after {@link #setMaxReportedFailures(int)} are only counted.
+ * <p>
+ * If a parallel executor is set, consecutive lines whose handlers are {@link engine.command.anno.AsyncSafe}
+ * run on it in any order, every other line waits for them and runs on the calling thread.
+ * Arguments are always parsed on the calling thread in script order.
+ */
+public class CommandScriptRunner {
+
+    private static final int REGION_SIZE = 64 << 20;
+    private static final int MAX_PENDING = 1024;
+
+    private final BaseCommandManager commandManager;
+    private final DefaultCommandParser tokenizer = new DefaultCommandParser();
+
+    private Charset charset = StandardCharsets.UTF_8;
+    private Executor parallelExecutor;
+    private int maxReportedFailures = 1000;
+
+    public CommandScriptRunner(BaseCommandManager commandManager) {
+        this.commandManager = Objects.requireNonNull(commandManager);
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = Objects.requireNonNull(charset);
+    }
+
+    /**
+     * Lines rejected by the executor fail with {@link CommandFailure.Type#REJECTED}.
+     *
+     * @param parallelExecutor executor for {@link engine.command.anno.AsyncSafe} handlers, null runs every line on the calling thread
+     */
+    public void setParallelExecutor(Executor parallelExecutor) {
+        this.parallelExecutor = parallelExecutor;
+    }
+
+    public void setMaxReportedFailures(int maxReportedFailures) {
+        this.maxReportedFailures = maxReportedFailures;
+    }
+
+    /**
+     * Runs the script, returns after every line was executed.
+     *
+     * @throws IOException if the file can not be read or a line is longer than 64 MiB
+     */
+    public Result run(CommandSender sender, Path script) throws IOException {
+        long start = System.nanoTime();
+        Run run = new Run(sender);
+        try (FileChannel channel = FileChannel.open(script, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long regionSize = Math.min(size - position, REGION_SIZE);
+                boolean last = position + regionSize == size;
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+                int consumed = run.runLines(region, position == 0, last);
+                if (!last && consumed == 0)
+                    throw new IOException("line " + (run.lineNumber + 1) + " is longer than " + REGION_SIZE + " bytes");
+                position += last ? regionSize : consumed;
+            }
+        } finally {
+            run.awaitPending();
+        }
+        run.result.elapsedNanos = System.nanoTime() - start;
+        return run.result;
+    }
+
+    /**
+     * State of one {@link #run(CommandSender, Path)}.
+     */
+    private final class Run {
+
+        private final CommandSender sender;
+        private final Result result = new Result();
+        private final CommandTokens tokens = new CommandTokens();
+        private final CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private CharBuffer line = CharBuffer.allocate(256);
+        private CommandResult commandResult = new CommandResult();
+        private final List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+        private int lineNumber;
+        //连续执行同一命令时只查找一次
+        private String lastName;
+        private Command lastCommand;
+
+        private Run(CommandSender sender) {
+            this.sender = sender;
+        }
+
+        /**
+         * @return the bytes consumed, a trailing line without line break is only consumed in the last region
+         */
+        private int runLines(ByteBuffer region, boolean first, boolean last) {
+            int limit = region.limit();
+            int lineStart = 0;
+            //跳过UTF-8 BOM
+            if (first && limit >= 3 && region.get(0) == (byte) 0xEF && region.get(1) == (byte) 0xBB && region.get(2) == (byte) 0xBF)
+                lineStart = 3;
+            ByteBuffer view = region.duplicate();
+            for (int i = lineStart; i < limit; i++) {
+                if (region.get(i) == '\n') {
+                    runLine(view, lineStart, i > lineStart && region.get(i - 1) == '\r' ? i - 1 : i);
+                    lineStart = i + 1;
+                }
+            }
+            if (last && lineStart < limit) {
+                runLine(view, lineStart, region.get(limit - 1) == '\r' ? limit - 1 : limit);
+                lineStart = limit;
+            }
+            return lineStart;
+        }
+
+        private void runLine(ByteBuffer view, int start, int end) {
+            lineNumber++;
+            decode(view, start, end);
+            if (isBlankOrComment(line))
+                return;
+            tokenizer.tokenize(line, tokens);
+            String name = tokens.getString(0);
+            String[] args = tokens.toArray(1);
+            if (!name.equals(lastName)) {
+                lastCommand = commandManager.getCommand(name).orElse(null);
+                lastName = name;
+            }
+            if (parallelExecutor == null) {
+                record(lineNumber, commandManager.execute(sender, lastName, lastCommand, args, commandResult, false));
+                return;
+            }
+            execute(lastCommand, args);
+        }
+
+        private void execute(Command command, String[] args) {
+            int lineNumber = this.lineNumber;
+            CommandResult commandResult = this.commandResult;
+            CommandExecution execution = commandManager.prepare(sender, lastName, command, args, commandResult, false);
+            if (execution == null) {
+                record(lineNumber, commandResult);
+                return;
+            }
+            if (!execution.isAsyncSafe()) {
+                awaitPending();
+                record(lineNumber, commandManager.invoke(sender, execution, commandResult));
+                return;
+            }
+            if (pending.size() == MAX_PENDING)
+                awaitPending();
+            //结果交给executor后换成新的实例
+            this.commandResult = new CommandResult();
+            try {
+                pending.add(commandManager.invokeAsync(sender, args, execution, commandResult, parallelExecutor, false)
+                        .thenRun(() -> record(lineNumber, commandResult)));
+            } catch (RejectedExecutionException e) {
+                record(lineNumber, commandResult);
+            }
+        }
+
+        private void record(int lineNumber, CommandResult commandResult) {
+            if (commandResult.isSuccess()) {
+                result.addSuccess();
+            } else {
+                result.addFailure(new Failure(lineNumber, commandResult.getFailure(), commandResult.getException()), maxReportedFailures);
+            }
+        }
+
+        private void awaitPending() {
+            if (pending.isEmpty())
+                return;
+            CompletableFuture.allOf(pending.toArray(CompletableFuture<?>[]::new)).join();
+            pending.clear();
+        }
+
+        private void decode(ByteBuffer view, int start, int end) {
+            view.clear();
+            view.position(start).limit(end);
+            int maxChars = (int) Math.ceil((end - start) * (double) decoder.maxCharsPerByte());
+            if (line.capacity() < maxChars)
+                line = CharBuffer.allocate(Math.max(maxChars, line.capacity() << 1));
+            line.clear();
+            decoder.reset();
+            decoder.decode(view, line, true);
+            decoder.flush(line);
+            line.flip();
+        }
+
+        private boolean isBlankOrComment(CharSequence line) {
+            for (int i = 0, length = line.length(); i < length; i++) {
+                char c = line.charAt(i);
+                if (c != ' ' && c != '　' && c != '\t')
+                    return c == '#';
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Outcome of a script, safe to read once {@link #run(CommandSender, Path)} returned.
+     */
+    public static final class Result {
+
+        private long executed;
+        private long failureCount;
+        private final List<Failure> failures = new ArrayList<>();
+        private long elapsedNanos;
+
+        private synchronized void addSuccess() {
+            executed++;
+        }
+
+        private synchronized void addFailure(Failure failure, int maxReportedFailures) {
+            executed++;
+            failureCount++;
+            if (failures.size() < maxReportedFailures)
+                failures.add(failure);
+        }
+
+        /**
+         * @return the number of executed lines, blank and comment lines are not counted
+         */
+        public synchronized long getExecuted() {
+            return executed;
+        }
+
+        public synchronized long getFailureCount() {
+            return failureCount;
+        }
+
+        public synchronized boolean isSuccess() {
+            return failureCount == 0;
+        }
+
+        /**
+         * @return the reported failures, ordered by line number unless lines ran in parallel
+         */
+        public synchronized List<Failure> getFailures() {
+            return Collections.unmodifiableList(new ArrayList<>(failures));
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "executed=" + getExecuted() +
+                    ", failureCount=" + getFailureCount() +
+                    ", elapsedNanos=" + elapsedNanos +
+                    '}';
+        }
+    }
+
+    public static final class Failure {
+
+        private final int lineNumber;
+        private final CommandFailure.Type type;
+        private final Exception exception;
+
+        private Failure(int lineNumber, CommandFailure.Type type, Exception exception) {
+            this.lineNumber = lineNumber;
+            this.type = type;
+            this.exception = exception;
+        }
+
+        /**
+         * @return the line number starting from 1
+         */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public CommandFailure.Type getType() {
+            return type;
+        }
+
+        /**
+         * @return the exception thrown by the line, if the type is {@link CommandFailure.Type#COMMAND_EXCEPTION}
+         */
+        public Exception getException() {
+            return exception;
+        }
+
+        @Override
+        public String toString() {
+            return "Failure{" +
+                    "lineNumber=" + lineNumber +
+                    ", type=" + type +
+                    ", exception=" + exception +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package engine.command;
+
+import java.util.List;
+
+/**
+ * Completion state of one console or chat box.
+ * <p>
+ * The args before the last one are parsed once and reused while the user is typing the last arg,
+ * editing an earlier arg, switching command or modifying commands falls back to a full parse.
+ * A session is not thread safe, create one per sender or connection by {@link BaseCommandManager#createCompletionSession(CommandSender)}.
+ */
+public class CompletionSession {
+
+    private final BaseCommandManager commandManager;
+    private final CommandSender sender;
+
+    private String line;
+    private CommandParser.Result parsedLine;
+
+    private Command command;
+    private long modCount;
+    private ParsedPrefix prefix;
+
+    CompletionSession(BaseCommandManager commandManager, CommandSender sender) {
+        this.commandManager = commandManager;
+        this.sender = sender;
+    }
+
+    public CommandSender getSender() {
+        return sender;
+    }
+
+    public List<String> complete(String line) {
+        CommandParser.Result result = parseLine(line);
+        if (!commandManager.hasCommand(result.getName())) {
+            return commandManager.completeCommandName(result.getName(), Integer.MAX_VALUE);
+        }
+        if (result.getArgs().length == 0 || throttled(result)) {
+            return List.of();
+        }
+        try {
+            return prefix(result).suggest(result.getArgs());
+        } catch (Exception e) {
+            commandManager.getExceptionHandler().handleOnSuggesting(e);
+            return List.of();
+        }
+    }
+
+    public List<String> getTips(String line) {
+        CommandParser.Result result = parseLine(line);
+        if (result.getName() == null || result.getName().isEmpty() || !commandManager.hasCommand(result.getName()) || throttled(result))
+            return List.of();
+        try {
+            return prefix(result).getTips(result.getArgs());
+        } catch (Exception e) {
+            commandManager.getExceptionHandler().handleOnGettingTips(e);
+            return List.of();
+        }
+    }
+
+    public ArgumentCheckResult checkLastArgument(String line) {
+        CommandParser.Result result = parseLine(line);
+        if (!commandManager.hasCommand(result.getName()))
+            return ArgumentCheckResult.Error("/" + result.getName() + "  command not found"); // TODO: L10n
+        if (result.getArgs().length == 0)
+            return ArgumentCheckResult.Valid();
+        if (throttled(result))
+            return BaseCommandManager.throttledCheck();
+        try {
+            return prefix(result).checkLastArgument(result.getArgs());
+        } catch (Exception e) {
+            commandManager.getExceptionHandler().handleOnCheckingArgument(e);
+            return ArgumentCheckResult.Error("Caught an exception when check last argument"); // TODO: L10n
+        }
+    }
+
+    /**
+     * Same as {@link CommandManager#analyze(CommandSender, String)} but reusing the retained parse.
+     */
+    public CommandAnalysis analyze(String line) {
+        CommandParser.Result result = parseLine(line);
+        if (!commandManager.hasCommand(result.getName()))
+            return commandManager.analyze(sender, result.getName(), result.getArgs());
+        if (throttled(result))
+            return BaseCommandManager.throttledAnalysis();
+        ParsedPrefix prefix;
+        try {
+            prefix = prefix(result);
+        } catch (Exception e) {
+            commandManager.getExceptionHandler().handleOnSuggesting(e);
+            return new CommandAnalysis(List.of(), List.of(), ArgumentCheckResult.Error("Caught an exception when check last argument")); // TODO: L10n
+        }
+        return commandManager.analyze(prefix, result.getArgs());
+    }
+
+    /**
+     * Drops the retained state, the next request parses the whole line.
+     */
+    public void reset() {
+        line = null;
+        parsedLine = null;
+        command = null;
+        prefix = null;
+    }
+
+    private CommandParser.Result parseLine(String line) {
+        //同一行的多次请求只分词一次
+        if (!line.equals(this.line)) {
+            parsedLine = commandManager.getParser().parse(line);
+            this.line = line;
+        }
+        return parsedLine;
+    }
+
+    private boolean throttled(CommandParser.Result result) {
+        Command command = commandManager.getCommand(result.getName()).orElseThrow();
+        return commandManager.throttle(sender, command, CommandRateLimiter.Budget.SUGGEST) != 0;
+    }
+
+    private ParsedPrefix prefix(CommandParser.Result result) {
+        Command command = commandManager.getCommand(result.getName()).orElseThrow();
+        long modCount = commandManager.getModCount();
+        if (prefix == null || command != this.command || modCount != this.modCount || !prefix.matches(sender, result.getArgs())) {
+            //回退到完整解析
+            prefix = null;
+            prefix = command.parsePrefix(sender, result.getArgs());
+            this.command = command;
+            this.modCount = modCount;
+        }
+        return prefix;
+    }
+}
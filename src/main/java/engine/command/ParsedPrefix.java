@@ -0,0 +1,21 @@
+package engine.command;
+
+import java.util.List;
+
+/**
+ * Parse state of all args but the last one, see {@link Command#parsePrefix(CommandSender, String[])}.
+ * It can answer every args that {@link #matches(CommandSender, String[])}, only the last arg is processed again.
+ */
+public interface ParsedPrefix {
+
+    /**
+     * Whether the args have the same sender and the same args before the last one as the parsed args.
+     */
+    boolean matches(CommandSender sender, String[] args);
+
+    List<String> suggest(String[] args);
+
+    List<String> getTips(String[] args);
+
+    ArgumentCheckResult checkLastArgument(String[] args);
+}
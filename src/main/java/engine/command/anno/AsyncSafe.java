@@ -0,0 +1,16 @@
+package engine.command.anno;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a command handler which may run on the async executor of {@code executeAsync}.
+ * Handlers without it are treated as main thread only and run on the sync executor.
+ * For class commands annotate the {@code run} method.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AsyncSafe {
+}
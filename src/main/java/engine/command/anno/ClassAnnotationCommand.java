@@ -1,5 +1,6 @@
 package engine.command.anno;
 
+import com.google.common.base.Throwables;
 import engine.command.Command;
 import engine.command.CommandManager;
 import engine.command.argument.ArgumentManager;
@@ -8,17 +9,38 @@ import engine.command.util.CommandNodeUtil;
 import engine.command.util.node.CommandNode;
 import engine.command.util.node.Nodeable;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 public class ClassAnnotationCommand extends NodeAnnotationCommand {
 
+    private static final int POOL_CAPACITY = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
     public ClassAnnotationCommand(String name, String description, String helpMessage) {
         super(name, description, helpMessage);
     }
 
+    private ClassAnnotationCommand(ClassAnnotationCommand command) {
+        super(command);
+    }
+
+    @Override
+    protected NodeAnnotationCommand copy() {
+        return new ClassAnnotationCommand(this);
+    }
+
     public static class ClassAnnotationBuilder extends NodeBuilder {
 
         private List<CommandHandlerWrapper> commandHandlerList = new ArrayList<>();
@@ -42,8 +64,22 @@ public class ClassAnnotationCommand extends NodeAnnotationCommand {
             return (ClassAnnotationBuilder) super.addProvider(object);
         }
 
+        @Override
+        public ClassAnnotationBuilder setCompile(boolean compile) {
+            return (ClassAnnotationBuilder) super.setCompile(compile);
+        }
+
         public ClassAnnotationBuilder caseCommand(String commandName, String desc, String helpMessage, Runnable commandHandler) {
-            commandHandlerList.add(new CommandHandlerWrapper(commandName, desc, helpMessage, commandHandler));
+            commandHandlerList.add(new CommandHandlerWrapper(commandName, desc, helpMessage, () -> commandHandler, HandlerScope.SHARED));
+            return this;
+        }
+
+        /**
+         * @param handlerFactory creates handler instances, all instances must be of the same class
+         * @param scope          how handler instances are shared between executions
+         */
+        public ClassAnnotationBuilder caseCommand(String commandName, String desc, String helpMessage, Supplier<? extends Runnable> handlerFactory, HandlerScope scope) {
+            commandHandlerList.add(new CommandHandlerWrapper(commandName, desc, helpMessage, handlerFactory, scope));
             return this;
         }
 
@@ -60,7 +96,7 @@ public class ClassAnnotationCommand extends NodeAnnotationCommand {
             CommandNodeUtil.ClassUtil classAnnotationUtil = CommandNodeUtil.getClassUtil(argumentManager, suggesterManager);
             providerList.forEach(object -> classAnnotationUtil.addProvider(object));
             for (CommandHandlerWrapper wrapper : commandHandlerList) {
-                Runnable commandHandler = wrapper.instance;
+                Runnable commandHandler = wrapper.handlerFactory.get();
                 String commandName = wrapper.commandName;
                 String desc = wrapper.desc;
                 String helpMessage = wrapper.help;
@@ -68,12 +104,9 @@ public class ClassAnnotationCommand extends NodeAnnotationCommand {
 
                 List<CommandNode> nodeList = new ArrayList<>();
 
-                Command command = commandManager.getCommand(commandName).orElse(null);
-
-                if (command == null)
-                    command = new ClassAnnotationCommand(commandName, desc, helpMessage);
+                Command command = getCommand(commandName, () -> new ClassAnnotationCommand(commandName, desc, helpMessage));
 
-                if (!(command instanceof Nodeable))
+                if (!(command instanceof NodeAnnotationCommand))
                     throw new RuntimeException("命令: " + commandName + " 已注册，且不支持");
 
                 Nodeable nodeable = (Nodeable) command;
@@ -82,11 +115,9 @@ public class ClassAnnotationCommand extends NodeAnnotationCommand {
 
                 Class clazz = commandHandler.getClass();
 
-                Field[] fields = clazz.getFields();
+                InjectionPlan injectionPlan = new InjectionPlan(clazz);
 
-                for (Field field : fields) {
-                    if (field.getAnnotation(Ignore.class) != null)
-                        continue;
+                for (Field field : injectionPlan.fields) {
                     List<CommandNode> fieldNodes = classAnnotationUtil.parseField(field);
                     ArrayList<CommandNode> branches = new ArrayList<>();
                     for (CommandNode node : nodeList) {
@@ -99,34 +130,25 @@ public class ClassAnnotationCommand extends NodeAnnotationCommand {
                     nodeList = branches;
                 }
 
-                Consumer<List<Object>> executeConsumer = objects -> {
-                    int ignored = 0;
-                    for (int i = 0; i < objects.size(); i++) {
-                        Field field = fields[i + ignored];
-                        if (field.getAnnotation(Ignore.class) != null) {
-                            ignored++;
-                            i--;
-                            continue;
-                        }
-                        try {
-                            field.setAccessible(true);
-                            field.set(commandHandler, objects.get(i));
-                        } catch (IllegalAccessException e) {
-                            e.printStackTrace();
-                        }
-                    }
-                    commandHandler.run();
-                };
+                Function<List<Object>, Object> executor = createExecutor(wrapper, commandHandler, injectionPlan);
 
                 for (CommandNode node : nodeList) {
-                    node.setExecutor(executeConsumer);
+                    node.setExecutor(executor);
                 }
 
                 try {
-                    Permission permission = commandHandler.getClass().getMethod("run", new Class[0]).getAnnotation(Permission.class);
+                    Method run = commandHandler.getClass().getMethod("run", new Class[0]);
+                    Permission permission = run.getAnnotation(Permission.class);
                     if (permission != null) {
                         nodeList.forEach(node -> node.setPermissionExpression(permission.value()));
                     }
+                    if (run.getAnnotation(AsyncSafe.class) != null) {
+                        nodeList.forEach(node -> node.setAsyncSafe(true));
+                    }
+                    Cost cost = run.getAnnotation(Cost.class);
+                    if (cost != null) {
+                        command.setCost(Math.max(command.getCost(), cost.value()));
+                    }
                 } catch (NoSuchMethodException e) {
                     e.printStackTrace();
                 }
@@ -136,17 +158,149 @@ public class ClassAnnotationCommand extends NodeAnnotationCommand {
             return commands;
         }
 
+        private Function<List<Object>, Object> createExecutor(CommandHandlerWrapper wrapper, Runnable commandHandler, InjectionPlan injectionPlan) {
+            switch (wrapper.scope) {
+                case SHARED:
+                    return objects -> {
+                        synchronized (commandHandler) {
+                            injectionPlan.inject(commandHandler, objects);
+                            commandHandler.run();
+                        }
+                        return null;
+                    };
+                case PER_EXECUTION:
+                    return objects -> {
+                        Runnable handler = wrapper.handlerFactory.get();
+                        injectionPlan.inject(handler, objects);
+                        handler.run();
+                        return null;
+                    };
+                case POOLED:
+                    HandlerPool pool = new HandlerPool(POOL_CAPACITY);
+                    pool.offer(commandHandler);
+                    return objects -> {
+                        Runnable handler = pool.poll();
+                        if (handler == null)
+                            handler = wrapper.handlerFactory.get();
+                        try {
+                            injectionPlan.inject(handler, objects);
+                            handler.run();
+                        } finally {
+                            //不让池中的实例持有sender和参数
+                            injectionPlan.clear(handler);
+                            pool.offer(handler);
+                        }
+                        return null;
+                    };
+                default:
+                    throw new IllegalArgumentException("handler scope: " + wrapper.scope);
+            }
+        }
+
         private class CommandHandlerWrapper {
             public final String commandName;
             public final String desc;
             public final String help;
-            public final Runnable instance;
+            public final Supplier<? extends Runnable> handlerFactory;
+            public final HandlerScope scope;
 
-            public CommandHandlerWrapper(String commandName, String desc, String help, Runnable instance) {
+            public CommandHandlerWrapper(String commandName, String desc, String help, Supplier<? extends Runnable> handlerFactory, HandlerScope scope) {
                 this.commandName = commandName;
                 this.desc = desc;
                 this.help = help;
-                this.instance = instance;
+                this.handlerFactory = handlerFactory;
+                this.scope = scope;
+            }
+        }
+    }
+
+    /**
+     * Lock-free pool of idle handler instances, instances beyond the capacity are dropped.
+     */
+    private static class HandlerPool {
+
+        private final Queue<Runnable> handlers = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final int capacity;
+
+        private HandlerPool(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private Runnable poll() {
+            Runnable handler = handlers.poll();
+            if (handler != null)
+                size.decrementAndGet();
+            return handler;
+        }
+
+        private void offer(Runnable handler) {
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                return;
+            }
+            handlers.offer(handler);
+        }
+    }
+
+    /**
+     * Public fields without {@link Ignore} of a handler class and their setters, resolved once at build.
+     * Static final fields can not be injected and are rejected.
+     */
+    private static class InjectionPlan {
+
+        private final Field[] fields;
+        private final MethodHandle[] setters;
+        //引用类型的实例字段, 归还到池中前清空
+        private final int[] clearable;
+
+        private InjectionPlan(Class<?> clazz) {
+            List<Field> fieldList = new ArrayList<>();
+            for (Field field : clazz.getFields()) {
+                if (field.getAnnotation(Ignore.class) != null)
+                    continue;
+                if (Modifier.isStatic(field.getModifiers()) && Modifier.isFinal(field.getModifiers()))
+                    throw new IllegalArgumentException("can not inject static final field " + field + ", annotate it with @Ignore");
+                fieldList.add(field);
+            }
+            this.fields = fieldList.toArray(new Field[0]);
+            this.setters = new MethodHandle[fields.length];
+            MethodType setterType = MethodType.methodType(void.class, Object.class, Object.class);
+            for (int i = 0; i < fields.length; i++) {
+                try {
+                    fields[i].setAccessible(true);
+                    MethodHandle setter = MethodHandles.lookup().unreflectSetter(fields[i]);
+                    if (Modifier.isStatic(fields[i].getModifiers()))
+                        setter = MethodHandles.dropArguments(setter, 0, Object.class);
+                    setters[i] = setter.asType(setterType);
+                } catch (IllegalAccessException | RuntimeException e) {
+                    throw new RuntimeException("can not inject field " + fields[i], e);
+                }
+            }
+            this.clearable = IntStream.range(0, fields.length)
+                    .filter(i -> !fields[i].getType().isPrimitive() && !Modifier.isStatic(fields[i].getModifiers()))
+                    .toArray();
+        }
+
+        private void inject(Object handler, List<Object> values) {
+            for (int i = 0; i < setters.length; i++) {
+                try {
+                    setters[i].invokeExact(handler, values.get(i));
+                } catch (Throwable e) {
+                    Throwables.throwIfUnchecked(e);
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+        private void clear(Object handler) {
+            for (int i : clearable) {
+                try {
+                    setters[i].invokeExact(handler, (Object) null);
+                } catch (Throwable e) {
+                    Throwables.throwIfUnchecked(e);
+                    throw new RuntimeException(e);
+                }
             }
         }
     }
@@ -0,0 +1,17 @@
+package engine.command.anno;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tokens taken from the sender's budget of a {@link engine.command.CommandRateLimiter} per request of the command, 1 if absent.
+ * The command is charged before its arguments are parsed, so if several handlers of a command are annotated the highest cost is used.
+ * For class commands annotate the {@code run} method.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cost {
+    int value();
+}
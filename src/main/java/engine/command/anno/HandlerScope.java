@@ -0,0 +1,20 @@
+package engine.command.anno;
+
+/**
+ * How {@link ClassAnnotationCommand} handler instances are shared between executions.
+ */
+public enum HandlerScope {
+    /**
+     * One handler instance, executions of the command are serialized on it.
+     */
+    SHARED,
+    /**
+     * A new handler instance for every execution.
+     */
+    PER_EXECUTION,
+    /**
+     * Handler instances are borrowed from a pool, so concurrent executions use different instances.
+     * Injected reference fields are cleared before an instance is returned, at most twice the number of processors are kept.
+     */
+    POOLED
+}
@@ -5,13 +5,15 @@ import engine.command.CommandManager;
 import engine.command.argument.ArgumentManager;
 import engine.command.suggestion.SuggesterManager;
 import engine.command.util.CommandNodeUtil;
+import engine.command.util.asm.InvokerMode;
+import engine.command.util.asm.MethodInvokers;
 import engine.command.util.node.CommandNode;
 import engine.command.util.node.Nodeable;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.*;
+import java.util.function.Function;
 
 public class MethodAnnotationCommand extends NodeAnnotationCommand implements Nodeable {
 
@@ -19,6 +21,15 @@ public class MethodAnnotationCommand extends NodeAnnotationCommand implements No
         super(name, description, helpMessage);
     }
 
+    private MethodAnnotationCommand(MethodAnnotationCommand command) {
+        super(command);
+    }
+
+    @Override
+    protected NodeAnnotationCommand copy() {
+        return new MethodAnnotationCommand(this);
+    }
+
     public static AnnotationCommandBuilder getBuilder(CommandManager commandManager) {
         return new AnnotationCommandBuilder(commandManager);
     }
@@ -27,6 +38,8 @@ public class MethodAnnotationCommand extends NodeAnnotationCommand implements No
 
         private Set<Object> commandHandler = new HashSet<>();
 
+        private InvokerMode invokerMode = InvokerMode.REFLECTION;
+
         private AnnotationCommandBuilder(CommandManager commandManager) {
             super(commandManager);
         }
@@ -43,6 +56,18 @@ public class MethodAnnotationCommand extends NodeAnnotationCommand implements No
             return (AnnotationCommandBuilder) super.addProvider(object);
         }
 
+        public AnnotationCommandBuilder setCompile(boolean compile) {
+            return (AnnotationCommandBuilder) super.setCompile(compile);
+        }
+
+        /**
+         * Sets how handler methods are called, {@link InvokerMode#REFLECTION} by default.
+         */
+        public AnnotationCommandBuilder setInvokerMode(InvokerMode invokerMode) {
+            this.invokerMode = invokerMode;
+            return this;
+        }
+
         public AnnotationCommandBuilder addCommandHandler(Object object) {
             commandHandler.add(object);
             return this;
@@ -70,24 +95,15 @@ public class MethodAnnotationCommand extends NodeAnnotationCommand implements No
                     continue;
                 }
 
-                Command command = commandManager.getCommand(commandAnnotation.value()).orElse(null);
+                Command command = getCommand(commandAnnotation.value(),
+                        () -> new MethodAnnotationCommand(commandAnnotation.value(), commandAnnotation.desc(), commandAnnotation.helpMessage()));
 
-                if (command != null && !(command instanceof Nodeable)) {
+                if (!(command instanceof NodeAnnotationCommand)) {
                     throw new RuntimeException("command already exist " + command.getName() + " and not Nodeable");
                 }
-                if (command == null) {
-                    for (Command parsedCommand : list) {
-                        if (parsedCommand.getName().equals(commandAnnotation.value()))
-                            command = parsedCommand;
-                    }
-                }
 
                 Nodeable nodeable = (Nodeable) command;
 
-                if (nodeable == null) {
-                    nodeable = new MethodAnnotationCommand(commandAnnotation.value(), commandAnnotation.desc(), commandAnnotation.helpMessage());
-                }
-
 
                 List<CommandNode> nodes = null;
 
@@ -111,15 +127,8 @@ public class MethodAnnotationCommand extends NodeAnnotationCommand implements No
                     nodes = branchNodes;
                 }
 
-                nodes.forEach(commandNode -> commandNode.setExecutor((objects -> {
-                    try {
-                        method.invoke(o, objects.toArray());
-                    } catch (IllegalAccessException e) {
-                        e.printStackTrace();
-                    } catch (InvocationTargetException e) {
-                        e.printStackTrace();
-                    }
-                })));
+                Function<List<Object>, Object> executor = MethodInvokers.create(invokerMode, o, method);
+                nodes.forEach(commandNode -> commandNode.setExecutor(executor));
 
                 Permission permission = method.getAnnotation(Permission.class);
                 if (permission != null) {
@@ -127,6 +136,16 @@ public class MethodAnnotationCommand extends NodeAnnotationCommand implements No
                             commandNode.setPermissionExpression(permission.value()));
                 }
 
+                if (method.getAnnotation(AsyncSafe.class) != null) {
+                    nodes.forEach(commandNode -> commandNode.setAsyncSafe(true));
+                }
+
+                Cost cost = method.getAnnotation(Cost.class);
+                if (cost != null) {
+                    Command costCommand = (Command) nodeable;
+                    costCommand.setCost(Math.max(costCommand.getCost(), cost.value()));
+                }
+
                 CommandNode mainNode = nodeable.getNode();
 
                 for (CommandNode node : nodes) {
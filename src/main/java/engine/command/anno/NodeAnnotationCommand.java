@@ -9,31 +9,16 @@ import engine.command.suggestion.SuggesterManager;
 import engine.command.util.CommandNodeUtil;
 import engine.command.util.StringArgs;
 import engine.command.util.SuggesterHelper;
-import engine.command.util.Type;
-import engine.command.util.context.ContextNode;
+import engine.command.util.context.ArrayLinkedContext;
 import engine.command.util.context.LinkedContext;
 import engine.command.util.node.*;
-import engine.permission.Permissible;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class NodeAnnotationCommand extends Command implements Nodeable {
 
-    private static final PermissionWrapper TRUE = new PermissionWrapper(null, "") {
-        @Override
-        public boolean hasPermission() {
-            return true;
-        }
-    };
-
-    private static final PermissionWrapper FALSE = new PermissionWrapper(null, "") {
-        @Override
-        public boolean hasPermission() {
-            return false;
-        }
-    };
-
     protected final static ArgumentManager staticArgumentManage = new SimpleArgumentManager();
 
     protected final static SuggesterManager staticSuggesterManager = new SimpleSuggesterManager();
@@ -44,315 +29,226 @@ public class NodeAnnotationCommand extends Command implements Nodeable {
 
     private CommandNode node = new EmptyArgumentNode();
 
+    private volatile CompiledNodeTree compiledTree;
+
+    private static final CommandListener[] NO_LISTENERS = new CommandListener[0];
+
+    private volatile CommandListener[] listeners = NO_LISTENERS;
+
     public NodeAnnotationCommand(String name, String description, String helpMessage) {
         super(name, description, helpMessage);
     }
 
-    @Override
-    public void execute(CommandSender sender, String[] args) {
-        SimpleLinkedContext context = new SimpleLinkedContext(sender);
-        if (args == null || args.length == 0) {
-            if (node.canExecuteCommand()) {
-                if (!hasPermission(sender, node.getPermissionExpression())) {
-                    permissionNotEnough(sender, args, node.getPermissionExpression());
-                    return;
-                }
-                node.getExecutor().accept(List.of());
-            } else {
-                Map.Entry<CommandNode, SimpleLinkedContext> parseResult = parseArgs(context, args);
-                if (parseResult != null) {
-                    CommandNode resultNode = parseResult.getKey();
-                    if (resultNode.canExecuteCommand()) {
-                        if (!hasPermission(sender, resultNode.getPermissionExpression())) {
-                            permissionNotEnough(sender, args, resultNode.getPermissionExpression());
-                            return;
-                        }
-                        execute(parseResult.getValue(), resultNode);
-                        return;
-                    }
-                }
-                commandWrongUsage(sender, args);
-            }
-        } else {
-            Map.Entry<CommandNode, SimpleLinkedContext> parseResult = parseArgs(context, args);
-            CommandNode resultNode = parseResult.getKey();
-            if (CommandNodeUtil.getRequiredArgsSumFromParent2Child(resultNode) != args.length) {
-                commandWrongUsage(sender, args);
-                return;
-            }
-            if (!resultNode.canExecuteCommand()) {
-                commandWrongUsage(sender, args);
-                return;
-            }
-            if (!hasPermission(sender, resultNode.getPermissionExpression())) {
-                permissionNotEnough(sender, args, resultNode.getPermissionExpression());
-                return;
-            }
-            execute(parseResult.getValue(), resultNode);
-        }
+    protected NodeAnnotationCommand(NodeAnnotationCommand command) {
+        super(command.getName(), command.getDescription(), command.getHelpMessage());
+        setCost(command.getCost());
+        this.node = command.node.clone();
+        this.listeners = command.listeners;
+        if (command.isCompiled())
+            compile();
     }
 
-    private void execute(SimpleLinkedContext context, CommandNode node) {
-        ContextNode contextNode = context.root.getNext();
-        while (contextNode != null) {
-            contextNode.getOwner().collect(contextNode);
-            contextNode = contextNode.getNext();
-        }
-        node.getExecutor().accept(context.valueToArray());
+    /**
+     * Copies this command with a clone of the node tree, builders modify the copy and register it in place of this command.
+     */
+    protected NodeAnnotationCommand copy() {
+        return new NodeAnnotationCommand(this);
     }
 
-    private void permissionNotEnough(CommandSender sender, String[] args, String requiredPermissions) {
-        sender.sendCommandFailure(
-                new CommandFailure(CommandFailure.Type.PERMISSION_NOT_ENOUGH, sender, this, args, requiredPermissions));
+    /**
+     * Compiles the current node tree, execution uses the compiled tree afterwards.
+     * Call it again after the node tree is changed.
+     */
+    public void compile() {
+        compiledTree = CompiledNodeTree.compile(node);
     }
 
-    private void commandWrongUsage(CommandSender sender, String[] args) {
-        sender.sendCommandFailure(
-                new CommandFailure(CommandFailure.Type.COMMAND_WRONG_USAGE, sender, this, args, null));
+    public boolean isCompiled() {
+        return compiledTree != null;
     }
 
-    private boolean hasPermission(Permissible permissible, String permissionExpression) {
-        if (permissionExpression == null)
-            return true;
-        Stack<PermissionWrapper> permissionWrapperStack = new Stack<>();
-        Stack<Character> operatorStack = new Stack<>();
-
-        StringBuilder stringBuilder = new StringBuilder();
-
-        for (char c : permissionExpression.toCharArray()) {
-            switch (c) {
-                case '(':
-                case '!':
-                    stringBuilder.delete(0, stringBuilder.length());
-                    operatorStack.push(c);
-                    break;
-                case '|': {
-                    String s = stringBuilder.toString();
-                    if (!s.isBlank()) {
-                        permissionWrapperStack.push(new PermissionWrapper(permissible, s.trim()));
-                    }
-                    stringBuilder.delete(0, stringBuilder.length());
-
-                    if (!operatorStack.isEmpty()) {
-                        char peek = operatorStack.peek().charValue();
-                        if (peek == c || '(' == peek) {
-                            operatorStack.push(c);
-                            break;
-                        }
-                        while (!operatorStack.isEmpty() && peek != '(' && (peek == '|' || peek == '&' || peek == '!')) {
-                            computePermission(operatorStack.pop(), permissionWrapperStack);
-                            peek = operatorStack.peek();
-                        }
-                    }
+    /**
+     * Adds a listener receiving the post-parse and pre-permission hooks of this command.
+     */
+    public synchronized void addListener(CommandListener listener) {
+        CommandListener[] listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        listeners[listeners.length - 1] = Objects.requireNonNull(listener);
+        this.listeners = listeners;
+    }
 
-                    operatorStack.push(c);
-                    break;
-                }
-                case '&': {
-                    String s = stringBuilder.toString();
-                    if (!s.isBlank()) {
-                        permissionWrapperStack.push(new PermissionWrapper(permissible, s.trim()));
-                    }
-                    stringBuilder.delete(0, stringBuilder.length());
-                    operatorStack.push(c);
-                    break;
-                }
-                case ')': {
-                    String s = stringBuilder.toString();
-                    if (!s.isBlank()) {
-                        permissionWrapperStack.push(new PermissionWrapper(permissible, s.trim()));
-                    }
-                    stringBuilder.delete(0, stringBuilder.length());
+    public synchronized void removeListener(CommandListener listener) {
+        List<CommandListener> listeners = new ArrayList<>(Arrays.asList(this.listeners));
+        if (listeners.remove(listener))
+            this.listeners = listeners.toArray(NO_LISTENERS);
+    }
 
-                    char peek = operatorStack.peek().charValue();
-                    while (peek != '(') {
-                        computePermission(operatorStack.pop(), permissionWrapperStack);
-                        peek = operatorStack.peek();
-                    }
-                    operatorStack.pop();
-                    break;
-                }
-                default:
-                    stringBuilder.append(c);
-            }
+    @Override
+    public void execute(CommandSender sender, String[] args) {
+        CommandExecution execution = prepare(sender, args);
+        if (execution.isSuccess()) {
+            execution.run();
+        } else {
+            sender.sendCommandFailure(execution.toFailure(sender, this, args));
         }
+    }
 
-        String s = stringBuilder.toString();
-        if (!s.isBlank())
-            permissionWrapperStack.push(new PermissionWrapper(permissible, s.trim()));
-
-        while (!operatorStack.isEmpty())
-            computePermission(operatorStack.pop(), permissionWrapperStack);
-
-        return permissionWrapperStack.peek().hasPermission();
+    @Override
+    public CommandExecution prepare(CommandSender sender, String[] args) {
+        return prepare(sender, args, NO_LISTENERS);
     }
 
-    private void computePermission(char operator, Stack<PermissionWrapper> stack) {
-        switch (operator) {
-            case '!':
-                stack.push(stack.pop().hasPermission() ? FALSE : TRUE);
-                break;
-            case '|': {
-                PermissionWrapper pop2 = stack.pop();
-                PermissionWrapper pop1 = stack.pop();
-                stack.push(pop1.hasPermission() || pop2.hasPermission() ? TRUE : FALSE);
-                break;
+    @Override
+    public CommandExecution prepare(CommandSender sender, String[] args, CommandListener[] managerListeners) {
+        ArrayLinkedContext context = ArrayLinkedContext.acquire(sender);
+        try {
+            CommandListener[] listeners = this.listeners;
+            boolean noArgs = args == null || args.length == 0;
+            CommandNode resultNode = noArgs && node.canExecuteCommand() ? node : parseArgs(context, args);
+            if (resultNode == null) {
+                return commandWrongUsage(null);
             }
-            case '&': {
-                PermissionWrapper pop2 = stack.pop();
-                PermissionWrapper pop1 = stack.pop();
-                stack.push(pop1.hasPermission() && pop2.hasPermission() ? TRUE : FALSE);
-                break;
+            firePostParse(managerListeners, sender, resultNode, context);
+            firePostParse(listeners, sender, resultNode, context);
+            if (!resultNode.canExecuteCommand()) {
+                return commandWrongUsage(noArgs ? null : resultNode);
+            }
+            if (!noArgs && CommandNodeUtil.getRequiredArgsSumFromParent2Child(resultNode) != args.length) {
+                return commandWrongUsage(resultNode);
+            }
+            firePrePermission(managerListeners, sender, resultNode);
+            firePrePermission(listeners, sender, resultNode);
+            if (!resultNode.hasPermission(sender)) {
+                return permissionNotEnough(resultNode);
             }
-            default:
-                throw new IllegalStateException("operator: " + operator);
+            return prepare(context, resultNode);
+        } finally {
+            context.release();
         }
     }
 
-    private static class PermissionWrapper {
-        Permissible permissible;
-
-        String permission;
+    private CommandExecution prepare(ArrayLinkedContext context, CommandNode node) {
+        for (int i = 0; i < context.size(); i++) {
+            i = context.getOwnerAt(i).collect(context, i);
+        }
+        List<Object> values = context.valueToArray();
+        Function<List<Object>, Object> executor = node.getExecutor();
+        return CommandExecution.of(node, () -> executor.apply(values), node.isAsyncSafe());
+    }
 
-        public PermissionWrapper(Permissible permissible, String permission) {
-            this.permissible = permissible;
-            this.permission = permission;
+    private void firePostParse(CommandListener[] listeners, CommandSender sender, CommandNode node, LinkedContext context) {
+        for (CommandListener listener : listeners) {
+            listener.onPostParse(sender, this, node, context);
         }
+    }
 
-        public boolean hasPermission() {
-            return permissible.hasPermission(permission);
+    private void firePrePermission(CommandListener[] listeners, CommandSender sender, CommandNode node) {
+        for (CommandListener listener : listeners) {
+            listener.onPrePermission(sender, this, node);
         }
+    }
 
+    private CommandExecution permissionNotEnough(CommandNode node) {
+        return CommandExecution.failed(CommandFailure.Type.PERMISSION_NOT_ENOUGH, node, node.getPermissionExpression());
     }
 
-    private Map.Entry<CommandNode, SimpleLinkedContext> parseArgs(SimpleLinkedContext context, String[] args) {
+    private CommandExecution commandWrongUsage(CommandNode node) {
+        return CommandExecution.failed(CommandFailure.Type.COMMAND_WRONG_USAGE, node, null);
+    }
+
+    /**
+     * Resolves the args to the best node and copies the parsed values of its path to the context.
+     *
+     * @return the best node, or null if nothing was parsed
+     */
+    private CommandNode parseArgs(ArrayLinkedContext context, String[] args) {
+        CompiledNodeTree compiledTree = this.compiledTree;
+        if (compiledTree != null) {
+            return compiledTree.match(context, args);
+        }
 
         StringArgs stringArgs = new StringArgs(args);
 
-        HashMap<CommandNode, SimpleLinkedContext> results = new HashMap<>();
+        HashMap<CommandNode, ArrayLinkedContext> results = new LinkedHashMap<>();
         //解析递归从根Node开始
         parse(node, context, stringArgs, results);
-        List<Map.Entry<CommandNode, SimpleLinkedContext>> executableNodes = results.entrySet().stream().filter(entry -> entry.getKey().canExecuteCommand()).collect(Collectors.toList());
+        List<Map.Entry<CommandNode, ArrayLinkedContext>> executableNodes = results.entrySet().stream().filter(entry -> entry.getKey().canExecuteCommand()).collect(Collectors.toList());
 
         //筛选最佳结果
-        if (!executableNodes.isEmpty()) {
-            return filterResult(executableNodes);
-        } else {
-            return filterResult(results.entrySet());
-        }
+        Map.Entry<CommandNode, ArrayLinkedContext> entry = filterResult(executableNodes.isEmpty() ? results.entrySet() : executableNodes);
+        if (entry == null || entry.getKey() == null)
+            return null;
+        context.copyFrom(entry.getValue());
+        return entry.getKey();
     }
 
-    private Map.Entry<CommandNode, SimpleLinkedContext> filterResult(Collection<Map.Entry<CommandNode, SimpleLinkedContext>> results) {
-        Map.Entry<CommandNode, SimpleLinkedContext> entry = null;
+    private Map.Entry<CommandNode, ArrayLinkedContext> filterResult(Collection<Map.Entry<CommandNode, ArrayLinkedContext>> results) {
+        Map.Entry<CommandNode, ArrayLinkedContext> entry = null;
         CommandNode bestResult = null;
         int bestNodeDepth = 0;
-        for (Map.Entry<CommandNode, SimpleLinkedContext> result : results) {
+        int bestNodeArgs = 0;
+        for (Map.Entry<CommandNode, ArrayLinkedContext> result : results) {
             int depth = CommandNodeUtil.getDepth(result.getKey());
-            if (bestNodeCheck(bestResult, bestNodeDepth, depth)) {
+            int args = CommandNodeUtil.getRequiredArgsSumFromParent2Child(result.getKey());
+            if (bestNodeCheck(bestResult, bestNodeDepth, bestNodeArgs, depth, args)) {
                 bestResult = result.getKey();
                 bestNodeDepth = depth;
+                bestNodeArgs = args;
                 entry = result;
             }
         }
         return entry;
     }
 
-    private boolean bestNodeCheck(CommandNode bestNode, int bestNodeDepth, int checkNodeDepth) {
+    private boolean bestNodeCheck(CommandNode bestNode, int bestNodeDepth, int bestNodeArgs, int checkNodeDepth, int checkNodeArgs) {
         if (bestNode == null)
             return true;
-        return checkNodeDepth > bestNodeDepth;
+        //深度相同时选择消耗参数更多的节点
+        return checkNodeDepth > bestNodeDepth || checkNodeDepth == bestNodeDepth && checkNodeArgs > bestNodeArgs;
     }
 
-    private void parse(CommandNode node, SimpleLinkedContext context, StringArgs stringArgs, HashMap<CommandNode, SimpleLinkedContext> result) {
+    private void parse(CommandNode node, ArrayLinkedContext context, StringArgs stringArgs, HashMap<CommandNode, ArrayLinkedContext> result) {
         //如果当前的Args指针+Node需要的指针小于等于Args的长度
         if (stringArgs.getIndex() + node.getRequiredArgsNum() <= stringArgs.getLength()) {
-            ParseResult parseResult = node.parse(context, stringArgs);
-            if (parseResult.isFail()) {
+            if (!node.parseInto(context, stringArgs)) {
                 if (!result.containsKey(node.getParent()))
-                    result.put(node.getParent(), (SimpleLinkedContext) context.clone());
+                    result.put(node.getParent(), context.clone());
                 return;
-            } else if (parseResult.getValue() != null) {
-                context.add(node, parseResult.getValue());
             }
             //所有叶子节点都是可执行节点，如果不是那肯定是构建树时出了问题
             //假如Node能执行命令，则必然是叶子节点，直接加入待选结果
             if (node.canExecuteCommand()) {
-                result.put(node, (SimpleLinkedContext) context.clone());
+                result.put(node, context.clone());
             } else {
                 //保存当前指针
                 int index = stringArgs.getIndex();
-                for (CommandNode child : node.getChildren()) {
+                int mark = context.mark();
+                String token = stringArgs.peek();
+                //按字面量索引跳过的子节点视为解析失败
+                if (node.hasMismatchedLiteral(token) && !result.containsKey(node))
+                    result.put(node, context.clone());
+                for (CommandNode child : node.getCandidateChildren(token)) {
                     //子节点递归解析
                     parse(child, context, stringArgs, result);
                     //重设指针
                     stringArgs.setIndex(index);
-                    ContextNode lastNode = context.getLastNode();
-
-                    while (lastNode.getOwner() != null && !lastNode.getOwner().equals(node)) {
-                        lastNode = lastNode.getPre();
-                    }
-                    lastNode.setNext(null);
+                    context.reset(mark);
                 }
             }
         } else {
             //假如不满足条件，则直接将父Node加入待选结果
             if (!result.containsKey(node.getParent()))
-                result.put(node.getParent(), (SimpleLinkedContext) context.clone());
+                result.put(node.getParent(), context.clone());
         }
     }
 
     @Override
     public List<String> suggest(CommandSender sender, String[] args) {
-        StringArgs stringArgs = new StringArgs(Arrays.copyOfRange(args, 0, args.length - 1));
-        HashMap<CommandNode, SimpleLinkedContext> results = new HashMap<>();
-        parse(node, new SimpleLinkedContext(sender), stringArgs, results);
-        HashSet<String> suggests = new HashSet<>();
-        for (CommandNode node : results.keySet().stream().filter(node1 -> leafNodePermissionEnough(sender, node1) && CommandNodeUtil.getRequiredArgsSumFromParent2Child(node1) == args.length - 1).collect(Collectors.toList())) {
-            for (CommandNode child : node.getChildren()) {
-                if (child.getSuggester() != null) {
-                    suggests.addAll(child.getSuggester().suggest(sender, getName(), args));
-                }
-            }
-        }
-        return SuggesterHelper.filterStartWith(new ArrayList<>(suggests), args[args.length - 1]);
-    }
-
-    private boolean leafNodePermissionEnough(CommandSender sender, CommandNode node) {
-        Collection<? extends CommandNode> allLeafNode = CommandNodeUtil.getAllLeafNode(node);
-        for (CommandNode commandNode : allLeafNode) {
-            if (commandNode.getPermissionExpression() == null || sender.hasPermission(commandNode.getPermissionExpression()))
-                return true;
-        }
-        return false;
+        return parsePrefix(sender, args).suggest(args);
     }
 
     @Override
     public List<String> getTips(CommandSender sender, String[] args) {
-        StringArgs stringArgs = new StringArgs(Arrays.copyOfRange(args, 0, args.length - 1));
-        HashMap<CommandNode, SimpleLinkedContext> results = new HashMap<>();
-        parse(node, new SimpleLinkedContext(sender), stringArgs, results);
-
-        CommandNode nearestNode = null;
-        int nearestDepth = Integer.MAX_VALUE;
-
-        for (CommandNode result : results.keySet()) {
-            for (CommandNode child : result.getChildren()) {
-                int depth = CommandNodeUtil.getDepth(child);
-                if (depth < nearestDepth) {
-                    nearestNode = result;
-                    nearestDepth = depth;
-                }
-            }
-        }
-
-        if (nearestNode == null || nearestNode.getChildren().isEmpty()) {
-            return Collections.EMPTY_LIST;
-        }
-        List<CommandNode> nodes = CommandNodeUtil.getShortestPath(nearestNode);
-        List<String> tips = nodes.stream()
-                .filter(node1 -> !(node1 instanceof SenderNode)).map(node -> node.hasTip() ? node.getTip() : "")
-                .collect(Collectors.toList());
-        return tips;
+        return parsePrefix(sender, args).getTips(args);
     }
 
     @Override
@@ -360,243 +256,117 @@ public class NodeAnnotationCommand extends Command implements Nodeable {
         if (args == null || args.length == 0) {
             return ArgumentCheckResult.Valid();
         }
-        StringArgs stringArgs = new StringArgs(Arrays.copyOfRange(args, 0, args.length - 1));
-        HashMap<CommandNode, SimpleLinkedContext> results = new HashMap<>();
-        parse(node, new SimpleLinkedContext(sender), stringArgs, results);
-
-        StringArgs args1 = new StringArgs(args);
-        for (CommandNode node : results.keySet().stream().filter(node1 -> leafNodePermissionEnough(sender, node1)).collect(Collectors.toList())) {
-            for (CommandNode child : node.getChildren()) {
-                args1.setIndex(args.length - 1);
-                if (child.parse(results.get(node), args1).isSuccess())
-                    return ArgumentCheckResult.Valid();
-            }
-        }
-        return ArgumentCheckResult.Error("/" + this.getName() + " " + formatArgs(args) + " <- wrong");
-    }
-
-    private String formatArgs(String[] args) {
-        return Arrays.stream(args).map(s -> s + " ").collect(Collectors.joining());
+        return parsePrefix(sender, args).checkLastArgument(args);
     }
 
     @Override
-    public CommandNode getNode() {
-        return node;
-    }
-
-    private static class ClassBuilderGetter extends CommandBuilderGetter<ClassAnnotationCommand.ClassAnnotationBuilder> {
-
-        public ClassAnnotationCommand.ClassAnnotationBuilder getBuilder(CommandManager commandManager) {
-            return ClassAnnotationCommand.getBuilder(commandManager);
-        }
+    public ParsedPrefix parsePrefix(CommandSender sender, String[] args) {
+        String[] prefixArgs = Arrays.copyOf(args, Math.max(args.length - 1, 0));
+        HashMap<CommandNode, ArrayLinkedContext> results = new LinkedHashMap<>();
+        ArrayLinkedContext context = ArrayLinkedContext.acquire(sender);
+        try {
+            parse(node, context, new StringArgs(prefixArgs), results);
+        } finally {
+            context.release();
+        }
+        return new NodeParsedPrefix(sender, prefixArgs, results);
     }
 
-    private static class MethodBuilderGetter extends CommandBuilderGetter<MethodAnnotationCommand.AnnotationCommandBuilder> {
-
-        public MethodAnnotationCommand.AnnotationCommandBuilder getBuilder(CommandManager commandManager) {
-            return MethodAnnotationCommand.getBuilder(commandManager);
-        }
+    private boolean leafNodePermissionEnough(CommandSender sender, CommandNode node) {
+        return node.hasAnyLeafPermission(sender);
     }
 
-    private static class SimpleLinkedContext implements LinkedContext {
+    private class NodeParsedPrefix implements ParsedPrefix {
 
         private final CommandSender sender;
-        private final SimpleContextNode root = new SimpleContextNode(null, null);
+        private final String[] prefixArgs;
+        //args[0..n-1]的解析结果
+        private final HashMap<CommandNode, ArrayLinkedContext> results;
 
-        public SimpleLinkedContext(CommandSender sender) {
+        private NodeParsedPrefix(CommandSender sender, String[] prefixArgs, HashMap<CommandNode, ArrayLinkedContext> results) {
             this.sender = sender;
+            this.prefixArgs = prefixArgs;
+            this.results = results;
         }
 
         @Override
-        public CommandSender getSender() {
-            return sender;
-        }
-
-        @Override
-        public int first(Type type) {
-            for (int i = 0; i < size(); i++) {
-                if (getTypeAt(i).is(type))
-                    return i;
-            }
-            return -1;
+        public boolean matches(CommandSender sender, String[] args) {
+            return sender == this.sender && args.length - 1 == prefixArgs.length
+                    && Arrays.equals(args, 0, prefixArgs.length, prefixArgs, 0, prefixArgs.length);
         }
 
         @Override
-        public int last(Type type) {
-            for (int i = size() - 1; i >= 0; i--) {
-                if (getTypeAt(i).is(type))
-                    return i;
-            }
-            return -1;
-        }
-
-        @Override
-        public Type getTypeAt(int index) {
-            return Type.of(getValueAt(index).getClass());
-        }
-
-        @Override
-        public Object getValueAt(int index) {
-            return getNodeAt(index).getValue();
-        }
-
-        private ContextNode getNodeAt(int index) {
-            ContextNode node = root.getNext();
-            while (index != 0) {
-                index--;
-                if (node == null) {
-                    throw new IllegalStateException();
+        public List<String> suggest(String[] args) {
+            HashSet<String> suggests = new HashSet<>();
+            for (CommandNode node : results.keySet().stream().filter(node1 -> leafNodePermissionEnough(sender, node1) && CommandNodeUtil.getRequiredArgsSumFromParent2Child(node1) == args.length - 1).collect(Collectors.toList())) {
+                for (CommandNode child : node.getChildren()) {
+                    if (child.getSuggester() != null) {
+                        suggests.addAll(child.getSuggester().suggest(sender, getName(), args));
+                    }
                 }
-                node = node.getNext();
             }
-            return node;
+            return SuggesterHelper.filterStartWith(new ArrayList<>(suggests), args[args.length - 1]);
         }
 
         @Override
-        public int size() {
-            int i = 0;
-            ContextNode node = root.getNext();
-            if (node != null) {
-                i++;
-                node = node.getNext();
+        public List<String> getTips(String[] args) {
+            CommandNode nearestNode = null;
+            int nearestDepth = Integer.MAX_VALUE;
+
+            for (CommandNode result : results.keySet()) {
+                for (CommandNode child : result.getChildren()) {
+                    int depth = CommandNodeUtil.getDepth(child);
+                    if (depth < nearestDepth) {
+                        nearestNode = result;
+                        nearestDepth = depth;
+                    }
+                }
             }
-            return i;
-        }
 
-        private ContextNode getLastNode() {
-            ContextNode node = root;
-            while (node.getNext() != null) {
-                node = node.getNext();
+            if (nearestNode == null || nearestNode.getChildren().isEmpty()) {
+                return Collections.EMPTY_LIST;
             }
-            return node;
+            List<CommandNode> nodes = CommandNodeUtil.getShortestPath(nearestNode);
+            List<String> tips = nodes.stream()
+                    .filter(node1 -> !(node1 instanceof SenderNode)).map(node -> node.hasTip() ? node.getTip() : "")
+                    .collect(Collectors.toList());
+            return tips;
         }
 
         @Override
-        public void add(CommandNode handler, Object object) {
-            setNext(getLastNode(), new SimpleContextNode(handler, object));
-        }
-
-        private void setNext(ContextNode node, ContextNode next) {
-            node.setNext(next);
-            next.setPre(node);
-        }
-
-        @Override
-        public void add(CommandNode handler, int index, Object object) {
-            ContextNode node = new SimpleContextNode(handler, object);
-            ContextNode nodeAt = getNodeAt(index);
-            if (nodeAt.getNext() != null) {
-                ContextNode next = nodeAt.getNext();
-                setNext(nodeAt, node);
-                setNext(node, next);
-                return;
+        public ArgumentCheckResult checkLastArgument(String[] args) {
+            StringArgs args1 = new StringArgs(args);
+            for (CommandNode node : results.keySet().stream().filter(node1 -> leafNodePermissionEnough(sender, node1)).collect(Collectors.toList())) {
+                for (CommandNode child : node.getChildren()) {
+                    args1.setIndex(args.length - 1);
+                    if (child.parse(results.get(node), args1).isSuccess())
+                        return ArgumentCheckResult.Valid();
+                }
             }
-            setNext(nodeAt, node);
+            return ArgumentCheckResult.Error("/" + getName() + " " + formatArgs(args) + " <- wrong");
         }
+    }
 
-        @Override
-        public void remove(int index) {
-            ContextNode nodeAt = getNodeAt(index);
-            ContextNode pre = nodeAt.getPre();
-            if (nodeAt.getNext() != null) {
-                ContextNode next = nodeAt.getNext();
-                setNext(pre, next);
-            } else {
-                pre.setNext(null);
-            }
-        }
+    private String formatArgs(String[] args) {
+        return Arrays.stream(args).map(s -> s + " ").collect(Collectors.joining());
+    }
 
-        @Override
-        public void removeLast() {
-            ContextNode pre = getLastNode().getPre();
-            pre.setNext(null);
-        }
+    @Override
+    public CommandNode getNode() {
+        return node;
+    }
 
-        @Override
-        public List<Object> valueToArray() {
-            List<Object> list = new ArrayList<>();
-            ContextNode node = root.getNext();
-            while (node != null) {
-                list.add(node.getValue());
-                node = node.getNext();
-            }
-            return list;
-        }
+    private static class ClassBuilderGetter extends CommandBuilderGetter<ClassAnnotationCommand.ClassAnnotationBuilder> {
 
-        @Override
-        public LinkedContext clone() {
-            SimpleLinkedContext simpleLinkedContext = new SimpleLinkedContext(sender);
-            if (this.root.getNext() != null)
-                simpleLinkedContext.root.setNext(this.root.getNext().clone());
-            return simpleLinkedContext;
+        public ClassAnnotationCommand.ClassAnnotationBuilder getBuilder(CommandManager commandManager) {
+            return ClassAnnotationCommand.getBuilder(commandManager);
         }
+    }
 
-        private static class SimpleContextNode implements ContextNode {
-
-            private CommandNode owner;
-            private Object value;
-
-            private ContextNode next;
-            private ContextNode pre;
-
-            public SimpleContextNode(CommandNode owner, Object value) {
-                this.owner = owner;
-                this.value = value;
-            }
-
-            @Override
-            public Object getValue() {
-                return value;
-            }
-
-            @Override
-            public void setNext(ContextNode node) {
-                this.next = node;
-            }
-
-            @Override
-            public void setPre(ContextNode node) {
-                this.pre = node;
-            }
-
-            @Override
-            public ContextNode getNext() {
-                return next;
-            }
-
-            @Override
-            public ContextNode getPre() {
-                return pre;
-            }
-
-            @Override
-            public CommandNode getOwner() {
-                return owner;
-            }
-
-            @Override
-            public void setValue(Object value) {
-                this.value = value;
-            }
-
-            @Override
-            public String toString() {
-                return "SimpleContextNode{" +
-                        "owner=" + owner +
-                        ", value=" + value +
-                        '}';
-            }
+    private static class MethodBuilderGetter extends CommandBuilderGetter<MethodAnnotationCommand.AnnotationCommandBuilder> {
 
-            public SimpleContextNode clone() {
-                SimpleContextNode simpleContextNode = new SimpleContextNode(owner, value);
-                if (this.next != null) {
-                    ContextNode cloneNext = this.next.clone();
-                    simpleContextNode.setNext(cloneNext);
-                    cloneNext.setPre(simpleContextNode);
-                }
-                return simpleContextNode;
-            }
+        public MethodAnnotationCommand.AnnotationCommandBuilder getBuilder(CommandManager commandManager) {
+            return MethodAnnotationCommand.getBuilder(commandManager);
         }
     }
-
 }
@@ -5,7 +5,11 @@ import engine.command.argument.ArgumentManager;
 import engine.command.suggestion.SuggesterManager;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 import static engine.command.anno.NodeAnnotationCommand.staticArgumentManage;
 import static engine.command.anno.NodeAnnotationCommand.staticSuggesterManager;
@@ -20,6 +24,14 @@ public abstract class NodeBuilder {
 
     protected List<Object> providerList = new ArrayList<>();
 
+    protected boolean compile;
+
+    //本次build中按小写命令名使用的命令
+    private final Map<String, engine.command.Command> building = new HashMap<>();
+
+    //被build中的副本替换的已注册命令
+    private final List<engine.command.Command> replaced = new ArrayList<>();
+
     protected NodeBuilder(CommandManager commandManager) {
         this.commandManager = commandManager;
     }
@@ -39,12 +51,51 @@ public abstract class NodeBuilder {
         return this;
     }
 
+    /**
+     * Compiles the node tree of built commands on register, see {@link NodeAnnotationCommand#compile()}.
+     */
+    public NodeBuilder setCompile(boolean compile) {
+        this.compile = compile;
+        return this;
+    }
+
     protected abstract List<engine.command.Command> build();
 
+    /**
+     * Returns the command with the name that this build adds nodes to.
+     * A registered {@link NodeAnnotationCommand} is copied so that executions keep using an unchanged tree until
+     * {@link #register()} replaces it, other registered commands are returned as they are.
+     */
+    protected engine.command.Command getCommand(String name, Supplier<? extends engine.command.Command> factory) {
+        return building.computeIfAbsent(name.toLowerCase(), key -> {
+            engine.command.Command command = commandManager.getCommand(name).orElse(null);
+            if (command == null)
+                return factory.get();
+            if (!(command instanceof NodeAnnotationCommand))
+                return command;
+            replaced.add(command);
+            return ((NodeAnnotationCommand) command).copy();
+        });
+    }
+
     public void register() {
-        build().stream()
-                .filter(command -> !commandManager.hasCommand(command.getName()))
-                .forEach(command -> commandManager.registerCommand(command));
+        building.clear();
+        replaced.clear();
+        List<engine.command.Command> commands = build();
+        for (engine.command.Command command : commands) {
+            if (command instanceof NodeAnnotationCommand) {
+                NodeAnnotationCommand nodeCommand = (NodeAnnotationCommand) command;
+                //已注册命令的副本也需要重新编译
+                if (compile || nodeCommand.isCompiled())
+                    nodeCommand.compile();
+            }
+        }
+        //同名命令在build时是同一个实例
+        Map<String, engine.command.Command> newCommands = new LinkedHashMap<>();
+        for (engine.command.Command command : commands) {
+            newCommands.putIfAbsent(command.getName().toLowerCase(), command);
+        }
+        commandManager.replaceAll(replaced, newCommands.values());
     }
 
 }
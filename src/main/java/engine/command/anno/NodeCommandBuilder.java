@@ -4,7 +4,9 @@ import engine.command.CommandManager;
 import engine.command.argument.ArgumentManager;
 import engine.command.suggestion.SuggesterManager;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static engine.command.anno.NodeAnnotationCommand.staticArgumentManage;
 import static engine.command.anno.NodeAnnotationCommand.staticSuggesterManager;
@@ -35,8 +37,13 @@ public abstract class NodeCommandBuilder {
     protected abstract List<engine.command.Command> build();
 
     public void register() {
-        build().stream()
-                .filter(command -> !commandManager.hasCommand(command.getName()))
-                .forEach(command -> commandManager.registerCommand(command));
+        List<engine.command.Command> commands = build();
+        //已注册的命令在build时已被修改, 同名命令只注册第一个
+        Map<String, engine.command.Command> newCommands = new LinkedHashMap<>();
+        for (engine.command.Command command : commands) {
+            if (!commandManager.hasCommand(command.getName()))
+                newCommands.putIfAbsent(command.getName().toLowerCase(), command);
+        }
+        commandManager.registerAll(newCommands.values());
     }
 }
@@ -0,0 +1,39 @@
+package engine.command.argument;
+
+import engine.command.util.context.Context;
+import engine.command.util.context.PrimitiveType;
+
+import java.util.Optional;
+
+/**
+ * Argument of a primitive wrapper type, its values stay unboxed from parsing to generated invokers.
+ * {@link #accepts(String)} is the status of parsing, {@link #parseBits(String)} is only called for accepted args.
+ */
+public abstract class PrimitiveArgument<T> extends SimpleArgument<T> {
+
+    private final PrimitiveType primitiveType;
+
+    public PrimitiveArgument(Class<T> responsibleClass, String argumentName, PrimitiveType primitiveType) {
+        super(responsibleClass, argumentName);
+        this.primitiveType = primitiveType;
+    }
+
+    public PrimitiveType getPrimitiveType() {
+        return primitiveType;
+    }
+
+    public abstract boolean accepts(String arg);
+
+    /**
+     * Returns the value of an accepted arg as bits of the {@link PrimitiveType}.
+     */
+    public abstract long parseBits(String arg);
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<T> parse(Context context, String arg) {
+        if (!accepts(arg))
+            return Optional.empty();
+        return Optional.of((T) primitiveType.box(parseBits(arg)));
+    }
+}
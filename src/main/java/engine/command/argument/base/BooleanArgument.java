@@ -1,22 +1,16 @@
 package engine.command.argument.base;
 
-import engine.command.argument.Argument;
+import engine.command.argument.PrimitiveArgument;
 import engine.command.suggestion.Suggester;
-import engine.command.util.context.Context;
+import engine.command.util.context.PrimitiveType;
 
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
-public class BooleanArgument extends Argument {
-    @Override
-    public String getName() {
-        return "Boolean";
-    }
+public class BooleanArgument extends PrimitiveArgument<Boolean> {
 
-    @Override
-    public Class responsibleClass() {
-        return Boolean.class;
+    public BooleanArgument() {
+        super(Boolean.class, "Boolean", PrimitiveType.BOOLEAN);
     }
 
     /**
@@ -27,14 +21,17 @@ public class BooleanArgument extends Argument {
      * @return
      */
     @Override
-    public Optional parse(Context context, String arg) {
-        if(arg.equals("true")){
-            return Optional.of(true);
-        }
-        else if(arg.equals("false")){
-            return Optional.of(false);
-        }
-        return Optional.empty();
+    public boolean accepts(String arg) {
+        return arg.equals("true") || arg.equals("false");
+    }
+
+    public boolean parseBoolean(String arg) {
+        return arg.equals("true");
+    }
+
+    @Override
+    public long parseBits(String arg) {
+        return parseBoolean(arg) ? 1 : 0;
     }
 
     @Override
@@ -1,30 +1,30 @@
 package engine.command.argument.base;
 
-import engine.command.argument.Argument;
+import engine.command.argument.PrimitiveArgument;
 import engine.command.suggestion.Suggester;
-import engine.command.util.context.Context;
+import engine.command.util.NumberScanner;
+import engine.command.util.context.PrimitiveType;
 
 import java.util.List;
-import java.util.Optional;
 
-public class DoubleArgument extends Argument {
-    @Override
-    public String getName() {
-        return "Double";
+public class DoubleArgument extends PrimitiveArgument<Double> {
+
+    public DoubleArgument() {
+        super(Double.class, "Double", PrimitiveType.DOUBLE);
     }
 
     @Override
-    public Class responsibleClass() {
-        return Double.class;
+    public boolean accepts(String arg) {
+        return NumberScanner.isDecimal(arg);
+    }
+
+    public double parseDouble(String arg) {
+        return Double.parseDouble(arg);
     }
 
     @Override
-    public Optional parse(Context context, String arg) {
-        try {
-            return Optional.of(Double.valueOf(arg));
-        }catch (Exception e){
-            return Optional.empty();
-        }
+    public long parseBits(String arg) {
+        return Double.doubleToRawLongBits(parseDouble(arg));
     }
 
     @Override
@@ -1,30 +1,30 @@
 package engine.command.argument.base;
 
-import engine.command.argument.Argument;
+import engine.command.argument.PrimitiveArgument;
 import engine.command.suggestion.Suggester;
-import engine.command.util.context.Context;
+import engine.command.util.NumberScanner;
+import engine.command.util.context.PrimitiveType;
 
 import java.util.List;
-import java.util.Optional;
 
-public class FloatArgument extends Argument {
-    @Override
-    public String getName() {
-        return "Float";
+public class FloatArgument extends PrimitiveArgument<Float> {
+
+    public FloatArgument() {
+        super(Float.class, "Float", PrimitiveType.FLOAT);
     }
 
     @Override
-    public Class responsibleClass() {
-        return Float.class;
+    public boolean accepts(String arg) {
+        return NumberScanner.isDecimal(arg);
+    }
+
+    public float parseFloat(String arg) {
+        return Float.parseFloat(arg);
     }
 
     @Override
-    public Optional parse(Context context, String arg) {
-        try {
-            return Optional.of(Float.valueOf(arg));
-        }catch (Exception e){
-            return Optional.empty();
-        }
+    public long parseBits(String arg) {
+        return Float.floatToRawIntBits(parseFloat(arg));
     }
 
     @Override
@@ -1,26 +1,30 @@
 package engine.command.argument.base;
 
-
-import engine.command.argument.SimpleArgument;
+import engine.command.argument.PrimitiveArgument;
 import engine.command.suggestion.Suggester;
-import engine.command.util.context.Context;
+import engine.command.util.NumberScanner;
+import engine.command.util.context.PrimitiveType;
 
 import java.util.List;
-import java.util.Optional;
 
-public class IntegerArgument extends SimpleArgument {
+public class IntegerArgument extends PrimitiveArgument<Integer> {
 
     public IntegerArgument() {
-        super(Integer.class,"Integer");
+        super(Integer.class, "Integer", PrimitiveType.INT);
+    }
+
+    @Override
+    public boolean accepts(String arg) {
+        return NumberScanner.isInteger(arg, 10, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    public int parseInt(String arg) {
+        return (int) NumberScanner.parseInteger(arg, 10);
     }
 
     @Override
-    public Optional parse(Context context, String arg) {
-        try {
-            return Optional.of(Integer.valueOf(arg));
-        }catch (Exception e){
-            return Optional.empty();
-        }
+    public long parseBits(String arg) {
+        return parseInt(arg);
     }
 
     @Override
@@ -1,24 +1,30 @@
 package engine.command.argument.base;
 
-import engine.command.argument.SimpleArgument;
+import engine.command.argument.PrimitiveArgument;
 import engine.command.suggestion.Suggester;
-import engine.command.util.context.Context;
+import engine.command.util.NumberScanner;
+import engine.command.util.context.PrimitiveType;
 
 import java.util.List;
-import java.util.Optional;
 
-public class LongArgument extends SimpleArgument {
+public class LongArgument extends PrimitiveArgument<Long> {
+
     public LongArgument() {
-        super(Long.class,"Long");
+        super(Long.class, "Long", PrimitiveType.LONG);
+    }
+
+    @Override
+    public boolean accepts(String arg) {
+        return NumberScanner.isInteger(arg, 10, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    public long parseLong(String arg) {
+        return NumberScanner.parseInteger(arg, 10);
     }
 
     @Override
-    public Optional parse(Context context, String arg) {
-        try {
-            return Optional.of(Long.valueOf(arg));
-        }catch (Exception e){
-            return Optional.empty();
-        }
+    public long parseBits(String arg) {
+        return parseLong(arg);
     }
 
     @Override
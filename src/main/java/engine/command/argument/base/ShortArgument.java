@@ -1,24 +1,30 @@
 package engine.command.argument.base;
 
-import engine.command.argument.SimpleArgument;
+import engine.command.argument.PrimitiveArgument;
 import engine.command.suggestion.Suggester;
-import engine.command.util.context.Context;
+import engine.command.util.NumberScanner;
+import engine.command.util.context.PrimitiveType;
 
 import java.util.List;
-import java.util.Optional;
 
-public class ShortArgument extends SimpleArgument {
+public class ShortArgument extends PrimitiveArgument<Short> {
+
     public ShortArgument() {
-        super(Short.class,"Short");
+        super(Short.class, "Short", PrimitiveType.SHORT);
+    }
+
+    @Override
+    public boolean accepts(String arg) {
+        return NumberScanner.isInteger(arg, 10, Short.MIN_VALUE, Short.MAX_VALUE);
+    }
+
+    public short parseShort(String arg) {
+        return (short) NumberScanner.parseInteger(arg, 10);
     }
 
     @Override
-    public Optional parse(Context context, String arg) {
-        try {
-            return Optional.of(Short.valueOf(arg));
-        }catch (Exception e){
-            return Optional.empty();
-        }
+    public long parseBits(String arg) {
+        return parseShort(arg);
     }
 
     @Override
@@ -1,44 +1,53 @@
 package engine.command.impl;
 
 import engine.command.CommandParser;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import engine.command.util.CommandTokens;
 
 public class DefaultCommandParser implements CommandParser {
+
+    private static final ThreadLocal<CommandTokens> LOCAL_TOKENS = ThreadLocal.withInitial(CommandTokens::new);
+
     @Override
     public Result parse(String command) {
-        List<String> args = new ArrayList<>();
+        CommandTokens tokens = tokenize(command);
+        return new CommandParser.Result(tokens.getString(0), tokens.toArray(1));
+    }
+
+    /**
+     * Tokenizes into the buffer of the current thread, the buffer is overwritten by the next call on the same thread.
+     */
+    public CommandTokens tokenize(CharSequence command) {
+        return tokenize(command, LOCAL_TOKENS.get());
+    }
+
+    public CommandTokens tokenize(CharSequence command, CommandTokens tokens) {
+        tokens.clear();
         boolean quotes = false;
         boolean escape = false;
-        StringBuilder sb = new StringBuilder();
 
-        for (int i = 0; i < command.length(); i++) {
+        for (int i = 0, length = command.length(); i < length; i++) {
             char c = command.charAt(i);
 
             if ((c == ' ' || c == '　') && !quotes) {
-                args.add(sb.toString());
-                sb = new StringBuilder();
+                tokens.endToken();
             } else if (c == '"') {
                 if (escape)
-                    sb.append(c);
+                    tokens.append(c);
                 else
                     quotes = !quotes;
             } else if (c == '\\') {
                 if (escape) {
                     escape = false;
-                    sb.append(c);
+                    tokens.append(c);
                 } else {
                     escape = true;
                 }
             } else {
-                sb.append(c);
+                tokens.append(c);
                 escape = false;
             }
         }
-        args.add(sb.toString());
-        String[] argsArray = args.toArray(new String[0]);
-        return new CommandParser.Result(argsArray[0], Arrays.copyOfRange(argsArray, 1, argsArray.length));
+        tokens.endToken();
+        return tokens;
     }
 }
@@ -0,0 +1,31 @@
+package engine.command.metrics;
+
+import engine.command.CommandFailure;
+import engine.command.util.node.CommandNode;
+
+/**
+ * Receives timings of a {@link engine.command.BaseCommandManager}, see {@link engine.command.BaseCommandManager#setMetrics(CommandMetrics)}.
+ * <p>
+ * Methods are called on the executing thread, possibly by many threads at once, and should return quickly.
+ */
+public interface CommandMetrics {
+
+    /**
+     * Name under which executions of unknown commands are recorded, typed names are never passed.
+     */
+    String UNKNOWN_COMMAND = "<unknown>";
+
+    /**
+     * @param commandName the name of the executed command, or {@link #UNKNOWN_COMMAND} if no command was found
+     * @param node        the matched node, or null if the command is not node based or no node matched
+     * @param failure     the failure type, or null if the handler returned normally
+     * @param parseNanos  nanos spent on parsing the args and checking the permission
+     * @param handlerNanos nanos spent in the handler, 0 if it was not invoked
+     */
+    void recordExecution(String commandName, CommandNode node, CommandFailure.Type failure, long parseNanos, long handlerNanos);
+
+    /**
+     * @param nanos nanos spent on computing the suggestions of the command, including the suggestion cache
+     */
+    void recordSuggestion(String commandName, long nanos);
+}
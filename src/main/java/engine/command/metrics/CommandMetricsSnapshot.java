@@ -0,0 +1,101 @@
+package engine.command.metrics;
+
+import engine.command.CommandFailure;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable metrics of one command or of one node of a command, see {@link SimpleCommandMetrics#snapshot()}.
+ */
+public final class CommandMetricsSnapshot {
+
+    private final String name;
+    private final long executions;
+    private final Map<CommandFailure.Type, Long> failures;
+    private final LatencySnapshot parse;
+    private final LatencySnapshot handler;
+    private final LatencySnapshot suggestion;
+    private final Map<String, CommandMetricsSnapshot> nodes;
+
+    CommandMetricsSnapshot(String name, long executions, Map<CommandFailure.Type, Long> failures, LatencySnapshot parse,
+                           LatencySnapshot handler, LatencySnapshot suggestion, Map<String, CommandMetricsSnapshot> nodes) {
+        this.name = name;
+        this.executions = executions;
+        this.failures = failures;
+        this.parse = parse;
+        this.handler = handler;
+        this.suggestion = suggestion;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Sums the metrics of two nodes with the same usage, suggestions and child nodes are not merged.
+     */
+    static CommandMetricsSnapshot merge(CommandMetricsSnapshot a, CommandMetricsSnapshot b) {
+        Map<CommandFailure.Type, Long> failures = new EnumMap<>(CommandFailure.Type.class);
+        failures.putAll(a.failures);
+        b.failures.forEach((type, count) -> failures.merge(type, count, Long::sum));
+        return new CommandMetricsSnapshot(a.name, a.executions + b.executions, Collections.unmodifiableMap(failures),
+                LatencySnapshot.merge(a.parse, b.parse), LatencySnapshot.merge(a.handler, b.handler), a.suggestion, a.nodes);
+    }
+
+    /**
+     * @return the command name, or the usage of the node such as {@code "give <player> <int>"}
+     */
+    public String getName() {
+        return name;
+    }
+
+    public long getExecutions() {
+        return executions;
+    }
+
+    /**
+     * @return failure counts by type, types which never happened are absent
+     */
+    public Map<CommandFailure.Type, Long> getFailures() {
+        return failures;
+    }
+
+    public long getFailureCount() {
+        long count = 0;
+        for (long value : failures.values())
+            count += value;
+        return count;
+    }
+
+    public LatencySnapshot getParse() {
+        return parse;
+    }
+
+    public LatencySnapshot getHandler() {
+        return handler;
+    }
+
+    /**
+     * @return suggestion latency, only recorded per command so nodes return null
+     */
+    public LatencySnapshot getSuggestion() {
+        return suggestion;
+    }
+
+    /**
+     * @return metrics of the matched nodes keyed by usage, empty for nodes
+     */
+    public Map<String, CommandMetricsSnapshot> getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public String toString() {
+        return "CommandMetricsSnapshot{" +
+                "name='" + name + '\'' +
+                ", executions=" + executions +
+                ", failures=" + failures +
+                ", parse=" + parse +
+                ", handler=" + handler +
+                '}';
+    }
+}
@@ -0,0 +1,73 @@
+package engine.command.metrics;
+
+/**
+ * Immutable copy of a {@link LatencyHistogram}.
+ */
+public final class LatencySnapshot {
+
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long[] buckets;
+    private final long bucketCount;
+
+    LatencySnapshot(long count, long totalNanos, long maxNanos, long[] buckets, long bucketCount) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.buckets = buckets;
+        this.bucketCount = bucketCount;
+    }
+
+    static LatencySnapshot merge(LatencySnapshot a, LatencySnapshot b) {
+        long[] buckets = a.buckets.clone();
+        for (int i = 0; i < buckets.length; i++)
+            buckets[i] += b.buckets[i];
+        return new LatencySnapshot(a.count + b.count, a.totalNanos + b.totalNanos, Math.max(a.maxNanos, b.maxNanos),
+                buckets, a.bucketCount + b.bucketCount);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public long getMeanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the upper bound of the bucket containing the percentile, 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        if (bucketCount == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(bucketCount * Math.min(percentile, 100) / 100));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank)
+                return Math.min(LatencyHistogram.upperBoundOf(i), maxNanos);
+        }
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySnapshot{" +
+                "count=" + count +
+                ", mean=" + getMeanNanos() +
+                ", p50=" + getPercentileNanos(50) +
+                ", p99=" + getPercentileNanos(99) +
+                ", max=" + maxNanos +
+                '}';
+    }
+}
@@ -0,0 +1,174 @@
+package engine.command.metrics;
+
+import com.google.common.collect.MapMaker;
+import engine.command.CommandFailure;
+import engine.command.util.CommandNodeUtil;
+import engine.command.util.node.CommandNode;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@link CommandMetrics} keeping counters and {@link LatencyHistogram}s per command and per matched node.
+ * Recording only updates striped counters, {@link #snapshot()} copies them.
+ * <p>
+ * Unknown commands share the {@link #UNKNOWN_COMMAND} entry, node statistics are dropped once the node is garbage collected.
+ */
+public class SimpleCommandMetrics implements CommandMetrics, SimpleCommandMetricsMXBean {
+
+    private static final CommandFailure.Type[] FAILURE_TYPES = CommandFailure.Type.values();
+
+    private final Map<String, Stats> commands = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordExecution(String commandName, CommandNode node, CommandFailure.Type failure, long parseNanos, long handlerNanos) {
+        //未知命令不按输入的名字分别统计, 否则随机命令名会无限增加条目
+        Stats stats = stats(failure == CommandFailure.Type.COMMAND_NOT_FOUND ? UNKNOWN_COMMAND : commandName);
+        stats.record(failure, parseNanos, handlerNanos);
+        if (node != null)
+            stats.node(node).record(failure, parseNanos, handlerNanos);
+    }
+
+    @Override
+    public void recordSuggestion(String commandName, long nanos) {
+        stats(commandName).suggestion.record(nanos);
+    }
+
+    private Stats stats(String commandName) {
+        Stats stats = commands.get(commandName);
+        if (stats == null)
+            stats = commands.computeIfAbsent(commandName, key -> new Stats());
+        return stats;
+    }
+
+    /**
+     * @return metrics keyed by command name
+     */
+    public Map<String, CommandMetricsSnapshot> snapshot() {
+        Map<String, CommandMetricsSnapshot> snapshot = new TreeMap<>();
+        commands.forEach((name, stats) -> {
+            Map<String, CommandMetricsSnapshot> nodes = new TreeMap<>();
+            stats.nodes.forEach((node, nodeStats) -> {
+                String usage = usage(name, node);
+                //不同的node可能有相同的用法, 合并它们的统计
+                nodes.merge(usage, nodeStats.snapshot(usage, null, Map.of()), CommandMetricsSnapshot::merge);
+            });
+            snapshot.put(name, stats.snapshot(name, stats.suggestion.snapshot(), Collections.unmodifiableMap(nodes)));
+        });
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    @Override
+    public void reset() {
+        commands.clear();
+    }
+
+    /**
+     * Registers this as a platform MXBean, for example under {@code "engine.command:type=CommandMetrics"}.
+     *
+     * @throws IllegalStateException if the name is invalid or already registered
+     */
+    public void registerMBean(String objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(objectName));
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + objectName, e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getExecutions() {
+        return collect(CommandMetricsSnapshot::getExecutions);
+    }
+
+    @Override
+    public Map<String, Long> getFailures() {
+        return collect(CommandMetricsSnapshot::getFailureCount);
+    }
+
+    @Override
+    public Map<String, Long> getMeanParseNanos() {
+        return collect(snapshot -> snapshot.getParse().getMeanNanos());
+    }
+
+    @Override
+    public Map<String, Long> getMeanHandlerNanos() {
+        return collect(snapshot -> snapshot.getHandler().getMeanNanos());
+    }
+
+    @Override
+    public Map<String, Long> getP99HandlerNanos() {
+        return collect(snapshot -> snapshot.getHandler().getPercentileNanos(99));
+    }
+
+    @Override
+    public Map<String, Long> getMeanSuggestionNanos() {
+        return collect(snapshot -> snapshot.getSuggestion().getMeanNanos());
+    }
+
+    private Map<String, Long> collect(ToLongFunction<CommandMetricsSnapshot> function) {
+        Map<String, Long> map = new TreeMap<>();
+        snapshot().forEach((name, snapshot) -> map.put(name, function.applyAsLong(snapshot)));
+        return map;
+    }
+
+    private static String usage(String commandName, CommandNode node) {
+        StringBuilder sb = new StringBuilder(commandName);
+        for (CommandNode pathNode : CommandNodeUtil.getLinkedFromParent2Child(node)) {
+            if (pathNode.getLiteral() != null) {
+                sb.append(' ').append(pathNode.getLiteral());
+            } else if (pathNode.getRequiredArgsNum() > 0) {
+                sb.append(" <").append(pathNode.hasTip() ? pathNode.getTip() : pathNode.getClass().getSimpleName()).append('>');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static class Stats {
+
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder[] failures = new LongAdder[FAILURE_TYPES.length];
+        private final LatencyHistogram parse = new LatencyHistogram();
+        private final LatencyHistogram handler = new LatencyHistogram();
+        private final LatencyHistogram suggestion = new LatencyHistogram();
+        //弱引用key, 注销的命令的node可以被回收
+        private final Map<CommandNode, Stats> nodes = new MapMaker().weakKeys().makeMap();
+
+        private Stats() {
+            for (int i = 0; i < failures.length; i++)
+                failures[i] = new LongAdder();
+        }
+
+        private void record(CommandFailure.Type failure, long parseNanos, long handlerNanos) {
+            executions.increment();
+            if (failure != null)
+                failures[failure.ordinal()].increment();
+            parse.record(parseNanos);
+            if (failure == null || failure == CommandFailure.Type.COMMAND_EXCEPTION)
+                handler.record(handlerNanos);
+        }
+
+        private Stats node(CommandNode node) {
+            Stats stats = nodes.get(node);
+            if (stats == null)
+                stats = nodes.computeIfAbsent(node, key -> new Stats());
+            return stats;
+        }
+
+        private CommandMetricsSnapshot snapshot(String name, LatencySnapshot suggestion, Map<String, CommandMetricsSnapshot> nodes) {
+            Map<CommandFailure.Type, Long> failureCounts = new EnumMap<>(CommandFailure.Type.class);
+            for (int i = 0; i < failures.length; i++) {
+                long count = failures[i].sum();
+                if (count > 0)
+                    failureCounts.put(FAILURE_TYPES[i], count);
+            }
+            return new CommandMetricsSnapshot(name, executions.sum(), Collections.unmodifiableMap(failureCounts),
+                    parse.snapshot(), handler.snapshot(), suggestion, nodes);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package engine.command.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link SimpleCommandMetrics}, maps are keyed by command name.
+ */
+public interface SimpleCommandMetricsMXBean {
+
+    Map<String, Long> getExecutions();
+
+    Map<String, Long> getFailures();
+
+    Map<String, Long> getMeanParseNanos();
+
+    Map<String, Long> getMeanHandlerNanos();
+
+    Map<String, Long> getP99HandlerNanos();
+
+    Map<String, Long> getMeanSuggestionNanos();
+
+    void reset();
+}
@@ -2,6 +2,7 @@ package engine.command.simple;
 
 import engine.command.ArgumentCheckResult;
 import engine.command.Command;
+import engine.command.CommandExecution;
 import engine.command.CommandSender;
 
 import java.util.List;
@@ -12,6 +13,7 @@ public class SimpleCommand extends Command {
     private CommandSuggester completer;
     private CommandArgumentChecker argumentChecker;
     private CommandTips tips;
+    private boolean asyncSafe;
 
     public SimpleCommand(String name) {
         super(name);
@@ -27,6 +29,11 @@ public class SimpleCommand extends Command {
         executor.execute(sender, this, args);
     }
 
+    @Override
+    public CommandExecution prepare(CommandSender sender, String[] args) {
+        return CommandExecution.of(() -> execute(sender, args), asyncSafe);
+    }
+
     @Override
     public List<String> suggest(CommandSender sender, String[] args) {
         if (completer == null) return List.of();
@@ -60,4 +67,15 @@ public class SimpleCommand extends Command {
     public void setTips(CommandTips tips) {
         this.tips = tips;
     }
+
+    public boolean isAsyncSafe() {
+        return asyncSafe;
+    }
+
+    /**
+     * @see engine.command.anno.AsyncSafe
+     */
+    public void setAsyncSafe(boolean asyncSafe) {
+        this.asyncSafe = asyncSafe;
+    }
 }
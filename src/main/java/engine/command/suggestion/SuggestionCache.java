@@ -0,0 +1,113 @@
+package engine.command.suggestion;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import engine.command.Command;
+import engine.command.CommandSender;
+import engine.command.util.SuggesterHelper;
+import engine.command.util.node.Nodeable;
+import engine.permission.PermissionSnapshot;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Bounded cache of {@link Command#suggest(CommandSender, String[])} results.
+ * <p>
+ * Entries are keyed on the command, the args, the sender class and {@link CommandSender#permissionSnapshot()},
+ * so only use it if suggestions depend on nothing else of the sender.
+ * With prefix keying enabled the last arg of {@link Nodeable} commands is not part of the key, the suggestions for an
+ * empty last arg are cached and filtered by the typed prefix, so every keystroke of the same argument hits the same entry.
+ * The cache is invalidated when commands are registered or unregistered.
+ */
+public class SuggestionCache {
+
+    private static final String[] EMPTY_ARGS = new String[0];
+
+    private final Cache<Key, List<String>> cache;
+
+    private final boolean prefixKeyed;
+
+    public SuggestionCache(long maximumSize, Duration expireAfterWrite) {
+        this(maximumSize, expireAfterWrite, false);
+    }
+
+    /**
+     * @param prefixKeyed cache the suggestions of {@link Nodeable} commands once per argument and filter them by the typed prefix.
+     *                    Only enable it if every suggester of these commands returns the same suggestions for any last arg
+     *                    that are meant to be filtered by prefix, suggesters reading the last arg are called with an empty one.
+     */
+    public SuggestionCache(long maximumSize, Duration expireAfterWrite, boolean prefixKeyed) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        this.prefixKeyed = prefixKeyed;
+    }
+
+    /**
+     * @param suggester computes suggestions if they are not cached, may return null which is not cached
+     */
+    public List<String> suggest(Command command, CommandSender sender, String[] args, BiFunction<CommandSender, String[], List<String>> suggester) {
+        boolean prefixOnly = prefixKeyed && command instanceof Nodeable && args.length > 0;
+        String[] keyArgs = args.length == 0 ? EMPTY_ARGS : args.clone();
+        if (prefixOnly)
+            keyArgs[keyArgs.length - 1] = "";
+        Key key = new Key(command, keyArgs, sender.getClass(), sender.permissionSnapshot());
+        List<String> suggestions = cache.getIfPresent(key);
+        if (suggestions == null) {
+            List<String> computed = suggester.apply(sender, key.args.clone());
+            if (computed == null)
+                return List.of();
+            suggestions = List.copyOf(computed);
+            cache.put(key, suggestions);
+        }
+        if (!prefixOnly || args[args.length - 1].isEmpty())
+            return suggestions;
+        return SuggesterHelper.filterStartWith(suggestions, args[args.length - 1]);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private static final class Key {
+
+        private final Command command;
+        private final String[] args;
+        private final Class<?> senderClass;
+        //比较完整的权限, 哈希相同的不同权限不能共享建议
+        private final PermissionSnapshot permissions;
+        private final int hash;
+
+        private Key(Command command, String[] args, Class<?> senderClass, PermissionSnapshot permissions) {
+            this.command = command;
+            this.args = args;
+            this.senderClass = senderClass;
+            this.permissions = permissions;
+            this.hash = 31 * (31 * (31 * System.identityHashCode(command) + Arrays.hashCode(args)) + senderClass.hashCode()) + permissions.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return command == key.command &&
+                    senderClass == key.senderClass &&
+                    Arrays.equals(args, key.args) &&
+                    permissions.equals(key.permissions);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package engine.command.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for {@code executeAsync}.
+ */
+public final class CommandExecutors {
+
+    public static final int DEFAULT_MAX_PENDING = 1024;
+
+    private CommandExecutors() {
+    }
+
+    /**
+     * Virtual threads if the JDK supports them, otherwise a daemon pool with one thread per processor,
+     * at most {@link #DEFAULT_MAX_PENDING} commands may be pending.
+     */
+    public static Executor newDefaultExecutor() {
+        Executor executor = newVirtualThreadExecutor();
+        if (executor == null)
+            executor = newThreadPool(Runtime.getRuntime().availableProcessors());
+        return bounded(executor, DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * @return an executor starting a virtual thread per task, or null if the JDK has no virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    public static ExecutorService newThreadPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "command-executor-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Limits the tasks submitted to the executor but not yet finished,
+     * {@link RejectedExecutionException} is thrown once the limit is reached.
+     */
+    public static Executor bounded(Executor executor, int maxPending) {
+        return new BoundedExecutor(executor, maxPending);
+    }
+
+    private static final class BoundedExecutor implements Executor {
+
+        private final Executor executor;
+        private final Semaphore permits;
+
+        private BoundedExecutor(Executor executor, int maxPending) {
+            this.executor = executor;
+            this.permits = new Semaphore(maxPending);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (!permits.tryAcquire())
+                throw new RejectedExecutionException("too many pending commands");
+            try {
+                executor.execute(() -> {
+                    try {
+                        command.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+    }
+}
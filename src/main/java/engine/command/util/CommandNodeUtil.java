@@ -221,37 +221,15 @@ public class CommandNodeUtil {
      * @return
      */
     public static int getRequiredArgsSumFromParent2Child(CommandNode node) {
-        int i = 0;
-        while (true) {
-            if (node == null) {
-                return i;
-            }
-            i += node.getRequiredArgsNum();
-            if (node.getParent() == null) {
-                return i;
-            }
-            node = node.getParent();
-        }
+        return node == null ? 0 : node.getRequiredArgsSum();
     }
 
     public static CommandNode getTopParent(CommandNode child) {
-        while (true) {
-            if (child.getParent() == null) {
-                return child;
-            }
-            child = child.getParent();
-        }
+        return child.getTopParent();
     }
 
     public static int getDepth(CommandNode node) {
-        if (node == null)
-            return 0;
-        int i = 0;
-        while (node.getParent() != null) {
-            i++;
-            node = node.getParent();
-        }
-        return i;
+        return node == null ? 0 : node.getDepth();
     }
 
     public static List<CommandNode> getLinkedFromParent2Child(CommandNode child) {
@@ -268,18 +246,7 @@ public class CommandNodeUtil {
     }
 
     public static Collection<? extends CommandNode> getAllLeafNode(CommandNode clone) {
-        ArrayList<CommandNode> list = new ArrayList<>();
-        List<CommandNode> arrayList = new LinkedList<>();
-        arrayList.add(clone);
-        while (!arrayList.isEmpty()) {
-            CommandNode node = arrayList.remove(0);
-            if (node.getChildren().isEmpty()) {
-                list.add(node);
-            } else {
-                arrayList.addAll(node.getChildren());
-            }
-        }
-        return list;
+        return clone.getLeaves();
     }
 
 
@@ -0,0 +1,167 @@
+package engine.command.util;
+
+import java.util.Arrays;
+
+/**
+ * Reusable token buffer filled by {@link engine.command.impl.DefaultCommandParser#tokenize(CharSequence, CommandTokens)}.
+ * Tokens are stored as offset/length slices over one scratch char array,
+ * Strings are only created when {@link #getString(int)} or {@link #toArray(int)} is called.
+ */
+public class CommandTokens {
+
+    private static final String[] EMPTY = new String[0];
+
+    private char[] chars;
+    private int[] starts;
+    private int[] ends;
+
+    private int size;
+    private int length;
+    private int tokenStart;
+
+    public CommandTokens() {
+        this(64, 8);
+    }
+
+    public CommandTokens(int charCapacity, int tokenCapacity) {
+        this.chars = new char[Math.max(charCapacity, 1)];
+        this.starts = new int[Math.max(tokenCapacity, 1)];
+        this.ends = new int[Math.max(tokenCapacity, 1)];
+    }
+
+    public void clear() {
+        size = 0;
+        length = 0;
+        tokenStart = 0;
+    }
+
+    public void append(char c) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, chars.length << 1);
+        }
+        chars[length++] = c;
+    }
+
+    public void endToken() {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size << 1);
+            ends = Arrays.copyOf(ends, size << 1);
+        }
+        starts[size] = tokenStart;
+        ends[size] = length;
+        size++;
+        tokenStart = length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int length(int index) {
+        checkIndex(index);
+        return ends[index] - starts[index];
+    }
+
+    public char charAt(int index, int offset) {
+        checkIndex(index);
+        return chars[starts[index] + offset];
+    }
+
+    public boolean isEmpty(int index) {
+        return length(index) == 0;
+    }
+
+    public boolean contentEquals(int index, CharSequence sequence) {
+        int length = length(index);
+        if (sequence.length() != length)
+            return false;
+        int start = starts[index];
+        for (int i = 0; i < length; i++) {
+            if (chars[start + i] != sequence.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    public boolean startsWith(int index, CharSequence prefix) {
+        int length = length(index);
+        if (prefix.length() > length)
+            return false;
+        int start = starts[index];
+        for (int i = 0; i < prefix.length(); i++) {
+            if (chars[start + i] != prefix.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a view of the token, valid until the buffer is cleared.
+     */
+    public CharSequence get(int index) {
+        checkIndex(index);
+        return new Slice(starts[index], ends[index]);
+    }
+
+    public String getString(int index) {
+        checkIndex(index);
+        return new String(chars, starts[index], ends[index] - starts[index]);
+    }
+
+    public String[] toArray(int from) {
+        if (from >= size)
+            return EMPTY;
+        String[] array = new String[size - from];
+        for (int i = from; i < size; i++) {
+            array[i - from] = getString(i);
+        }
+        return array;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+    }
+
+    @Override
+    public String toString() {
+        return "CommandTokens{" +
+                "tokens=" + Arrays.toString(toArray(0)) +
+                '}';
+    }
+
+    private class Slice implements CharSequence {
+
+        private final int start;
+        private final int end;
+
+        private Slice(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length())
+                throw new IndexOutOfBoundsException("index: " + index + ", length: " + length());
+            return chars[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length() || start > end)
+                throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length());
+            return new Slice(this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, start, end - start);
+        }
+    }
+}
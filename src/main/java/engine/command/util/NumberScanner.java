@@ -0,0 +1,126 @@
+package engine.command.util;
+
+/**
+ * Validating number scanners for arguments, invalid input is reported by the return value instead of an exception.
+ * <p>
+ * Integers accept an optional sign and digits of the radix like {@link Long#parseLong(String, int)}.
+ * Decimals accept an optional sign, digits with an optional fraction and exponent, an optional
+ * {@code f/F/d/D} suffix, {@code NaN} and {@code Infinity}, surrounding whitespace and hex floats are rejected.
+ */
+public final class NumberScanner {
+
+    private NumberScanner() {
+    }
+
+    /**
+     * Returns whether the whole sequence is an integer of the radix between min and max inclusive.
+     */
+    public static boolean isInteger(CharSequence s, int radix, long min, long max) {
+        int length = s.length();
+        if (length == 0)
+            return false;
+        int i = 0;
+        boolean negative = false;
+        char first = s.charAt(0);
+        if (first == '-' || first == '+') {
+            if (length == 1)
+                return false;
+            negative = first == '-';
+            i++;
+        }
+        //和Long.parseLong一样用负数累加, 避免Long.MIN_VALUE溢出
+        long limit = negative ? min : -max;
+        if (limit > 0)
+            return false;
+        long multmin = limit / radix;
+        long result = 0;
+        for (; i < length; i++) {
+            int digit = Character.digit(s.charAt(i), radix);
+            if (digit < 0 || result < multmin)
+                return false;
+            result *= radix;
+            if (result < limit + digit)
+                return false;
+            result -= digit;
+        }
+        long value = negative ? result : -result;
+        return value >= min && value <= max;
+    }
+
+    /**
+     * Parses an integer which was accepted by {@link #isInteger(CharSequence, int, long, long)}, the result is undefined otherwise.
+     */
+    public static long parseInteger(CharSequence s, int radix) {
+        int length = s.length();
+        int i = 0;
+        boolean negative = false;
+        char first = s.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+        long result = 0;
+        for (; i < length; i++) {
+            result = result * radix - Character.digit(s.charAt(i), radix);
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Returns whether the whole sequence is a decimal number, {@link Double#parseDouble(String)} never throws for it.
+     */
+    public static boolean isDecimal(CharSequence s) {
+        int length = s.length();
+        int i = 0;
+        if (length > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+'))
+            i++;
+        if (matches(s, i, "NaN") || matches(s, i, "Infinity"))
+            return true;
+        int digits = 0;
+        while (i < length && isDigit(s.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < length && s.charAt(i) == '.') {
+            i++;
+            while (i < length && isDigit(s.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0)
+            return false;
+        if (i < length && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+'))
+                i++;
+            int exponentDigits = 0;
+            while (i < length && isDigit(s.charAt(i))) {
+                i++;
+                exponentDigits++;
+            }
+            if (exponentDigits == 0)
+                return false;
+        }
+        if (i < length) {
+            char suffix = s.charAt(i);
+            if (suffix == 'f' || suffix == 'F' || suffix == 'd' || suffix == 'D')
+                i++;
+        }
+        return i == length;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean matches(CharSequence s, int start, String word) {
+        if (s.length() - start != word.length())
+            return false;
+        for (int i = 0; i < word.length(); i++) {
+            if (s.charAt(start + i) != word.charAt(i))
+                return false;
+        }
+        return true;
+    }
+}
@@ -4,7 +4,7 @@ import java.util.Arrays;
 
 public class StringArgs {
 
-    private final String[] args;
+    private String[] args;
 
     private int index;
 
@@ -12,10 +12,25 @@ public class StringArgs {
         this.args = args;
     }
 
+    /**
+     * Starts over with other args, so that one instance can be reused.
+     */
+    public void reset(String[] args) {
+        this.args = args;
+        this.index = 0;
+    }
+
     public String next() {
         return args[index++];
     }
 
+    /**
+     * @return the next arg without moving the index, or null if there is no more arg
+     */
+    public String peek() {
+        return index < args.length ? args[index] : null;
+    }
+
     public boolean hasNext() {
         return index < args.length;
     }
@@ -1,10 +1,11 @@
 package engine.command.util;
 
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Type {
 
-    private static final HashMap<Class, Type> typeCache = new HashMap<>();
+    private static final Map<Class, Type> typeCache = new ConcurrentHashMap<>();
 
     private Class clazz;
 
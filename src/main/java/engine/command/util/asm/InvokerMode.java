@@ -0,0 +1,17 @@
+package engine.command.util.asm;
+
+public enum InvokerMode {
+    /**
+     * Calls the handler method by {@link java.lang.reflect.Method#invoke(Object, Object...)}.
+     */
+    REFLECTION,
+    /**
+     * Calls the handler method through a spreading {@link java.lang.invoke.MethodHandle}.
+     */
+    METHOD_HANDLE,
+    /**
+     * Calls the handler method directly from a class generated by ASM,
+     * falls back to {@link #METHOD_HANDLE} if the method is not accessible from a generated class.
+     */
+    GENERATED
+}
@@ -0,0 +1,31 @@
+package engine.command.util.asm;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Defines classes in the package and class loader of the host class.
+ */
+public class LookupClassDefiner implements ClassDefiner {
+
+    private final Class<?> host;
+
+    public LookupClassDefiner(Class<?> host) {
+        this.host = host;
+    }
+
+    @Override
+    public Class define(String className, byte[] bytes) {
+        if (!getPackageName(className).equals(host.getPackageName()))
+            throw new IllegalArgumentException("class " + className + " is not in package of " + host.getName());
+        try {
+            return MethodHandles.privateLookupIn(host, MethodHandles.lookup()).defineClass(bytes);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("can not define class " + className, e);
+        }
+    }
+
+    private static String getPackageName(String className) {
+        int lastDot = className.lastIndexOf('.');
+        return lastDot == -1 ? "" : className.substring(0, lastDot);
+    }
+}
@@ -0,0 +1,234 @@
+package engine.command.util.asm;
+
+import engine.command.util.context.ArgumentList;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Creates the executors which call command handler methods with the parsed arguments.
+ * Generated executors read primitive parameters unboxed from an {@link ArgumentList}.
+ * <p>
+ * Executors of every mode rethrow exceptions of the handler unchanged, checked exceptions are not wrapped.
+ */
+public final class MethodInvokers {
+
+    private static final String INVOKER_SUFFIX = "$$CapInvoker$";
+
+    private static final AtomicInteger invokerId = new AtomicInteger();
+
+    //按声明类保存, 卸载插件时生成的类随其ClassLoader一起回收
+    private static final ClassValue<Map<java.lang.reflect.Method, java.lang.reflect.Constructor<?>>> generatedInvokers = new ClassValue<>() {
+        @Override
+        protected Map<java.lang.reflect.Method, java.lang.reflect.Constructor<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private MethodInvokers() {
+    }
+
+    public static Function<List<Object>, Object> create(InvokerMode mode, Object target, java.lang.reflect.Method method) {
+        switch (mode) {
+            case REFLECTION:
+                return reflection(target, method);
+            case METHOD_HANDLE:
+                return methodHandle(target, method);
+            case GENERATED:
+                return generated(target, method);
+            default:
+                throw new IllegalArgumentException("invoker mode: " + mode);
+        }
+    }
+
+    public static Function<List<Object>, Object> reflection(Object target, java.lang.reflect.Method method) {
+        return objects -> {
+            try {
+                return method.invoke(target, objects.toArray());
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("can not access method " + method, e);
+            } catch (InvocationTargetException e) {
+                throw sneakyThrow(e.getCause());
+            }
+        };
+    }
+
+    public static Function<List<Object>, Object> methodHandle(Object target, java.lang.reflect.Method method) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup()).unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("can not access method " + method, e);
+        }
+        if (!Modifier.isStatic(method.getModifiers()))
+            handle = handle.bindTo(target);
+        MethodHandle spreader = handle.asSpreader(Object[].class, method.getParameterCount())
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        return objects -> {
+            try {
+                return spreader.invokeExact(objects.toArray());
+            } catch (Throwable e) {
+                throw sneakyThrow(e);
+            }
+        };
+    }
+
+    /**
+     * Throws the exception without declaring it, as the generated executors do.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Throwable> RuntimeException sneakyThrow(Throwable e) throws T {
+        throw (T) e;
+    }
+
+    /**
+     * Returns an executor generated for the method, or a {@link #methodHandle(Object, java.lang.reflect.Method)}
+     * executor if the method can not be called from a generated class.
+     * Exceptions thrown by the method are not caught by generated executors.
+     */
+    @SuppressWarnings("unchecked")
+    public static Function<List<Object>, Object> generated(Object target, java.lang.reflect.Method method) {
+        if (!canGenerate(method))
+            return methodHandle(target, method);
+        java.lang.reflect.Constructor<?> constructor = generatedInvokers.get(method.getDeclaringClass())
+                .computeIfAbsent(method, MethodInvokers::generateInvoker);
+        try {
+            return (Function<List<Object>, Object>) constructor.newInstance(target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("can not create invoker of " + method, e);
+        }
+    }
+
+    private static boolean canGenerate(java.lang.reflect.Method method) {
+        Class<?> host = method.getDeclaringClass();
+        if (host.isInterface() && Modifier.isStatic(method.getModifiers()))
+            return false;
+        if (!isAccessible(method.getReturnType(), host))
+            return false;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!isAccessible(parameterType, host))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isAccessible(Class<?> type, Class<?> host) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive())
+            return true;
+        if (type.getPackageName().equals(host.getPackageName()) && type.getClassLoader() == host.getClassLoader())
+            return true;
+        return Modifier.isPublic(type.getModifiers()) && type.getModule().isExported(type.getPackageName(), host.getModule());
+    }
+
+    private static java.lang.reflect.Constructor<?> generateInvoker(java.lang.reflect.Method method) {
+        Class<?> host = method.getDeclaringClass();
+        String className = host.getName() + INVOKER_SUFFIX + invokerId.getAndIncrement();
+        byte[] bytes = generateInvokerClass(className.replace('.', '/'), method);
+        Class<?> invokerClass = new LookupClassDefiner(host).define(className, bytes);
+        try {
+            return invokerClass.getConstructor(Object.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String primitiveGetter(Class<?> type) {
+        if (type == int.class)
+            return "getInt";
+        if (type == long.class)
+            return "getLong";
+        if (type == short.class)
+            return "getShort";
+        if (type == float.class)
+            return "getFloat";
+        if (type == double.class)
+            return "getDouble";
+        if (type == boolean.class)
+            return "getBoolean";
+        return null;
+    }
+
+    private static byte[] generateInvokerClass(String internalName, java.lang.reflect.Method method) {
+        Type hostType = Type.getType(method.getDeclaringClass());
+        Type listType = Type.getType(List.class);
+        Type argumentListType = Type.getType(ArgumentList.class);
+        Type objectType = Type.getType(Object.class);
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, internalName, null,
+                objectType.getInternalName(), new String[]{Type.getInternalName(Function.class)});
+        cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "target", objectType.getDescriptor(), null, null).visitEnd();
+
+        Method constructor = Method.getMethod("void <init> (Object)");
+        GeneratorAdapter init = new GeneratorAdapter(Opcodes.ACC_PUBLIC, constructor, null, null, cw);
+        init.loadThis();
+        init.invokeConstructor(objectType, Method.getMethod("void <init> ()"));
+        init.loadThis();
+        init.loadArg(0);
+        init.putField(Type.getObjectType(internalName), "target", objectType);
+        init.returnValue();
+        init.endMethod();
+
+        GeneratorAdapter apply = new GeneratorAdapter(Opcodes.ACC_PUBLIC, Method.getMethod("Object apply (Object)"), null, null, cw);
+        if (!isStatic) {
+            apply.loadThis();
+            apply.getField(Type.getObjectType(internalName), "target", objectType);
+            apply.checkCast(hostType);
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        //基本类型参数直接从ArgumentList读取, 不装箱
+        int arguments = apply.newLocal(argumentListType);
+        apply.loadArg(0);
+        apply.checkCast(listType);
+        apply.invokeStatic(argumentListType, Method.getMethod("engine.command.util.context.ArgumentList of (java.util.List)"));
+        apply.storeLocal(arguments);
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Type parameterType = Type.getType(parameterTypes[i]);
+            apply.loadLocal(arguments);
+            apply.push(i);
+            String getter = primitiveGetter(parameterTypes[i]);
+            if (getter != null) {
+                apply.invokeVirtual(argumentListType, new Method(getter, parameterType, new Type[]{Type.INT_TYPE}));
+            } else {
+                apply.invokeVirtual(argumentListType, Method.getMethod("Object get (int)"));
+                apply.unbox(parameterType);
+            }
+        }
+        Method handlerMethod = Method.getMethod(method);
+        if (isStatic) {
+            apply.invokeStatic(hostType, handlerMethod);
+        } else if (method.getDeclaringClass().isInterface()) {
+            apply.invokeInterface(hostType, handlerMethod);
+        } else {
+            apply.invokeVirtual(hostType, handlerMethod);
+        }
+        Type returnType = Type.getType(method.getReturnType());
+        if (returnType.getSort() == Type.VOID) {
+            apply.visitInsn(Opcodes.ACONST_NULL);
+        } else {
+            apply.box(returnType);
+        }
+        apply.returnValue();
+        apply.endMethod();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+}
@@ -0,0 +1,128 @@
+package engine.command.util.context;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Parsed values passed to command executors, primitive values are only boxed when read by {@link #get(int)}.
+ * The typed getters read them unboxed, boxed numbers are converted like unboxing and widening would.
+ */
+public final class ArgumentList extends AbstractList<Object> implements RandomAccess {
+
+    private static final long[] NO_BITS = new long[0];
+
+    //只有前16个位置的基本类型保持拆箱, 之后的值被装箱
+    private static final int MAX_PRIMITIVES = Long.SIZE / 4;
+
+    private static final PrimitiveType[] TYPES = PrimitiveType.values();
+
+    private final int size;
+    //非基本类型的值, 全部是基本类型时为null
+    private final Object[] values;
+    private final long[] bits;
+    //每个位置4位, 为PrimitiveType序号+1, 0表示值在values中
+    private final long typeCodes;
+
+    private ArgumentList(int size, Object[] values, long[] bits, long typeCodes) {
+        this.size = size;
+        this.values = values;
+        this.bits = bits;
+        this.typeCodes = typeCodes;
+    }
+
+    static ArgumentList of(Object[] values, PrimitiveType[] types, long[] bits, int size) {
+        long typeCodes = 0;
+        int primitives = 0;
+        boolean references = false;
+        for (int i = 0; i < size; i++) {
+            if (types[i] != null && i < MAX_PRIMITIVES) {
+                typeCodes |= (long) (types[i].ordinal() + 1) << i * 4;
+                primitives = i + 1;
+            } else {
+                references = true;
+            }
+        }
+        Object[] listValues = null;
+        if (references) {
+            listValues = new Object[size];
+            for (int i = 0; i < size; i++) {
+                if (typeCode(typeCodes, i) == 0)
+                    listValues[i] = types[i] != null ? types[i].box(bits[i]) : values[i];
+            }
+        }
+        return new ArgumentList(size, listValues, primitives != 0 ? Arrays.copyOf(bits, primitives) : NO_BITS, typeCodes);
+    }
+
+    private static int typeCode(long typeCodes, int index) {
+        return index < MAX_PRIMITIVES ? (int) (typeCodes >>> index * 4) & 0xF : 0;
+    }
+
+    /**
+     * Returns the list itself if it is an argument list, otherwise a copy of it.
+     */
+    public static ArgumentList of(List<?> list) {
+        if (list instanceof ArgumentList)
+            return (ArgumentList) list;
+        return new ArgumentList(list.size(), list.toArray(), NO_BITS, 0);
+    }
+
+    @Override
+    public Object get(int index) {
+        PrimitiveType type = getPrimitiveType(index);
+        return type != null ? type.box(bits[index]) : values[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public boolean isPrimitive(int index) {
+        return getPrimitiveType(index) != null;
+    }
+
+    private PrimitiveType getPrimitiveType(int index) {
+        Objects.checkIndex(index, size);
+        int code = typeCode(typeCodes, index);
+        return code != 0 ? TYPES[code - 1] : null;
+    }
+
+    public int getInt(int index) {
+        return (int) getLong(index);
+    }
+
+    public short getShort(int index) {
+        return (short) getLong(index);
+    }
+
+    public long getLong(int index) {
+        PrimitiveType type = getPrimitiveType(index);
+        return type != null ? type.toLong(bits[index]) : ((Number) values[index]).longValue();
+    }
+
+    public float getFloat(int index) {
+        return (float) getDouble(index);
+    }
+
+    public double getDouble(int index) {
+        PrimitiveType type = getPrimitiveType(index);
+        return type != null ? type.toDouble(bits[index]) : ((Number) values[index]).doubleValue();
+    }
+
+    public boolean getBoolean(int index) {
+        PrimitiveType type = getPrimitiveType(index);
+        if (type == null)
+            return (Boolean) values[index];
+        if (type != PrimitiveType.BOOLEAN)
+            throw new ClassCastException(type.getWrapperClass().getName() + " is not a boolean");
+        return bits[index] != 0;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,262 @@
+package engine.command.util.context;
+
+import engine.command.CommandSender;
+import engine.command.util.Type;
+import engine.command.util.node.CommandNode;
+import engine.command.util.node.ParseResult;
+
+import java.util.Arrays;
+
+/**
+ * {@link LinkedContext} backed by parallel owner/value arrays, indexed access is O(1).
+ * Primitive values are kept unboxed in a side buffer until they are read as objects.
+ * <p>
+ * Parsing backtracks by {@link #mark()} and {@link #reset(int)} instead of cloning.
+ * {@link #acquire(CommandSender)} borrows a context pooled by the current thread, it must be {@link #release() released}
+ * on the same thread once the values are no longer used.
+ */
+public class ArrayLinkedContext implements LinkedContext {
+
+    private static final int POOL_SIZE = 4;
+
+    private static final ThreadLocal<ArrayLinkedContext[]> POOL = ThreadLocal.withInitial(() -> new ArrayLinkedContext[POOL_SIZE]);
+
+    private CommandSender sender;
+    private CommandNode[] owners;
+    private Object[] values;
+    //基本类型的值, 类型为null时值在values中
+    private PrimitiveType[] types;
+    private long[] bits;
+    private int size;
+
+    private boolean pooled;
+    private boolean inUse;
+
+    public ArrayLinkedContext(CommandSender sender) {
+        this(sender, 8);
+    }
+
+    public ArrayLinkedContext(CommandSender sender, int capacity) {
+        this.sender = sender;
+        this.owners = new CommandNode[Math.max(capacity, 1)];
+        this.values = new Object[Math.max(capacity, 1)];
+        this.types = new PrimitiveType[Math.max(capacity, 1)];
+        this.bits = new long[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Borrows an empty context of the current thread, a new one is created if all pooled contexts are in use.
+     */
+    public static ArrayLinkedContext acquire(CommandSender sender) {
+        ArrayLinkedContext[] pool = POOL.get();
+        for (int i = 0; i < pool.length; i++) {
+            ArrayLinkedContext context = pool[i];
+            if (context == null) {
+                context = pool[i] = new ArrayLinkedContext(null);
+                context.pooled = true;
+            }
+            if (!context.inUse) {
+                context.inUse = true;
+                context.sender = sender;
+                return context;
+            }
+        }
+        return new ArrayLinkedContext(sender);
+    }
+
+    /**
+     * Clears the context and returns it to the pool if it was acquired.
+     */
+    public void release() {
+        clear();
+        if (pooled) {
+            sender = null;
+            inUse = false;
+        }
+    }
+
+    @Override
+    public CommandSender getSender() {
+        return sender;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int first(Type type) {
+        for (int i = 0; i < size; i++) {
+            if (getTypeAt(i).is(type))
+                return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public int last(Type type) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (getTypeAt(i).is(type))
+                return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public Type getTypeAt(int index) {
+        return Type.of(getValueAt(index).getClass());
+    }
+
+    @Override
+    public Object getValueAt(int index) {
+        checkIndex(index);
+        PrimitiveType type = types[index];
+        return type != null ? type.box(bits[index]) : values[index];
+    }
+
+    public CommandNode getOwnerAt(int index) {
+        checkIndex(index);
+        return owners[index];
+    }
+
+    @Override
+    public void add(CommandNode handler, Object object) {
+        if (size == values.length)
+            grow();
+        owners[size] = handler;
+        values[size] = object;
+        size++;
+    }
+
+    public void addPrimitive(CommandNode handler, PrimitiveType type, long bits) {
+        if (size == values.length)
+            grow();
+        owners[size] = handler;
+        types[size] = type;
+        this.bits[size] = bits;
+        size++;
+    }
+
+    /**
+     * Adds the value of a successful parse result, results without value are ignored.
+     */
+    public void add(CommandNode handler, ParseResult result) {
+        if (result.isPrimitive()) {
+            addPrimitive(handler, result.getPrimitiveType(), result.getBits());
+        } else if (result.getValue() != null) {
+            add(handler, result.getValue());
+        }
+    }
+
+    /**
+     * Inserts the value at the index, following values are shifted.
+     */
+    @Override
+    public void add(CommandNode handler, int index, Object object) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        if (size == values.length)
+            grow();
+        System.arraycopy(owners, index, owners, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        System.arraycopy(types, index, types, index + 1, size - index);
+        System.arraycopy(bits, index, bits, index + 1, size - index);
+        owners[index] = handler;
+        values[index] = object;
+        types[index] = null;
+        size++;
+    }
+
+    private void grow() {
+        owners = Arrays.copyOf(owners, owners.length << 1);
+        values = Arrays.copyOf(values, values.length << 1);
+        types = Arrays.copyOf(types, types.length << 1);
+        bits = Arrays.copyOf(bits, bits.length << 1);
+    }
+
+    @Override
+    public void remove(int index) {
+        checkIndex(index);
+        System.arraycopy(owners, index + 1, owners, index, size - index - 1);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        System.arraycopy(types, index + 1, types, index, size - index - 1);
+        System.arraycopy(bits, index + 1, bits, index, size - index - 1);
+        reset(size - 1);
+    }
+
+    @Override
+    public void removeLast() {
+        if (size == 0)
+            throw new IllegalStateException();
+        reset(size - 1);
+    }
+
+    /**
+     * Returns the current position for {@link #reset(int)}.
+     */
+    public int mark() {
+        return size;
+    }
+
+    /**
+     * Drops all values added after the mark.
+     */
+    public void reset(int mark) {
+        for (int i = mark; i < size; i++) {
+            owners[i] = null;
+            values[i] = null;
+            types[i] = null;
+        }
+        size = mark;
+    }
+
+    public void clear() {
+        reset(0);
+    }
+
+    /**
+     * Replaces the content with the content of the other context.
+     */
+    public void copyFrom(ArrayLinkedContext context) {
+        clear();
+        if (owners.length < context.size) {
+            owners = new CommandNode[context.owners.length];
+            values = new Object[context.values.length];
+            types = new PrimitiveType[context.types.length];
+            bits = new long[context.bits.length];
+        }
+        System.arraycopy(context.owners, 0, owners, 0, context.size);
+        System.arraycopy(context.values, 0, values, 0, context.size);
+        System.arraycopy(context.types, 0, types, 0, context.size);
+        System.arraycopy(context.bits, 0, bits, 0, context.size);
+        size = context.size;
+    }
+
+    @Override
+    public ArgumentList valueToArray() {
+        return ArgumentList.of(values, types, bits, size);
+    }
+
+    /**
+     * Returns an unpooled copy.
+     */
+    @Override
+    public ArrayLinkedContext clone() {
+        ArrayLinkedContext context = new ArrayLinkedContext(sender, size);
+        context.copyFrom(this);
+        return context;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+    }
+
+    @Override
+    public String toString() {
+        return "ArrayLinkedContext{" +
+                "values=" + valueToArray() +
+                '}';
+    }
+}
@@ -0,0 +1,81 @@
+package engine.command.util.context;
+
+/**
+ * Primitive values kept unboxed in a context, every value is stored as long bits.
+ * Integers are stored as their value, booleans as 0 or 1, floats and doubles as their raw bits.
+ */
+public enum PrimitiveType {
+    INT(int.class, Integer.class),
+    LONG(long.class, Long.class),
+    SHORT(short.class, Short.class),
+    FLOAT(float.class, Float.class),
+    DOUBLE(double.class, Double.class),
+    BOOLEAN(boolean.class, Boolean.class);
+
+    private final Class<?> primitiveClass;
+    private final Class<?> wrapperClass;
+
+    PrimitiveType(Class<?> primitiveClass, Class<?> wrapperClass) {
+        this.primitiveClass = primitiveClass;
+        this.wrapperClass = wrapperClass;
+    }
+
+    public Class<?> getPrimitiveClass() {
+        return primitiveClass;
+    }
+
+    public Class<?> getWrapperClass() {
+        return wrapperClass;
+    }
+
+    public Object box(long bits) {
+        switch (this) {
+            case INT:
+                return (int) bits;
+            case LONG:
+                return bits;
+            case SHORT:
+                return (short) bits;
+            case FLOAT:
+                return Float.intBitsToFloat((int) bits);
+            case DOUBLE:
+                return Double.longBitsToDouble(bits);
+            default:
+                return bits != 0;
+        }
+    }
+
+    long toLong(long bits) {
+        switch (this) {
+            case FLOAT:
+                return (long) Float.intBitsToFloat((int) bits);
+            case DOUBLE:
+                return (long) Double.longBitsToDouble(bits);
+            case BOOLEAN:
+                throw new ClassCastException("boolean is not a number");
+            default:
+                return bits;
+        }
+    }
+
+    double toDouble(long bits) {
+        switch (this) {
+            case FLOAT:
+                return Float.intBitsToFloat((int) bits);
+            case DOUBLE:
+                return Double.longBitsToDouble(bits);
+            case BOOLEAN:
+                throw new ClassCastException("boolean is not a number");
+            default:
+                return bits;
+        }
+    }
+
+    public static PrimitiveType ofPrimitive(Class<?> clazz) {
+        for (PrimitiveType type : values()) {
+            if (type.primitiveClass == clazz)
+                return type;
+        }
+        return null;
+    }
+}
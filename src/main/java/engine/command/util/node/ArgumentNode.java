@@ -1,8 +1,10 @@
 package engine.command.util.node;
 
 import engine.command.argument.Argument;
+import engine.command.argument.PrimitiveArgument;
 import engine.command.suggestion.Suggester;
 import engine.command.util.StringArgs;
+import engine.command.util.context.ArrayLinkedContext;
 import engine.command.util.context.LinkedContext;
 
 import java.util.Optional;
@@ -29,6 +31,13 @@ public class ArgumentNode extends CommandNode {
         if (next.isEmpty()) {
             return ParseResult.fail();
         }
+        if (argument instanceof PrimitiveArgument) {
+            PrimitiveArgument primitiveArgument = (PrimitiveArgument) argument;
+            if (!primitiveArgument.accepts(next)) {
+                return ParseResult.fail();
+            }
+            return ParseResult.success(primitiveArgument.getPrimitiveType(), primitiveArgument.parseBits(next));
+        }
         Optional parse = argument.parse(context, next);
         if (parse.isPresent()) {
             return ParseResult.success(parse.get());
@@ -37,6 +46,18 @@ public class ArgumentNode extends CommandNode {
         }
     }
 
+    @Override
+    public boolean parseInto(ArrayLinkedContext context, StringArgs args) {
+        if (!(argument instanceof PrimitiveArgument))
+            return super.parseInto(context, args);
+        PrimitiveArgument primitiveArgument = (PrimitiveArgument) argument;
+        String next = args.next();
+        if (next.isEmpty() || !primitiveArgument.accepts(next))
+            return false;
+        context.addPrimitive(this, primitiveArgument.getPrimitiveType(), primitiveArgument.parseBits(next));
+        return true;
+    }
+
     @Override
     public String toString() {
         return "ArgumentNode{" +
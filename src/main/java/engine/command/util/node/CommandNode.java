@@ -2,35 +2,69 @@ package engine.command.util.node;
 
 import engine.command.suggestion.Suggester;
 import engine.command.util.StringArgs;
-import engine.command.util.context.ContextNode;
+import engine.command.util.context.ArrayLinkedContext;
 import engine.command.util.context.LinkedContext;
+import engine.permission.Permissible;
+import engine.permission.PermissionExpression;
 
 import java.util.*;
-import java.util.function.Consumer;
+import java.util.function.Function;
 
 public abstract class CommandNode implements Cloneable, Comparable<CommandNode> {
 
     private CommandNode parent;
 
-    private Consumer<List<Object>> executor;
+    private Function<List<Object>, Object> executor;
 
     private List<CommandNode> children = new ArrayList<>();
 
+    //字面量子节点索引, 没有字面量子节点时为null
+    private Map<String, List<CommandNode>> literalChildren;
+    private int literalCount;
+    private List<CommandNode> nonLiteralChildren = new ArrayList<>();
+
     private String permissionExpression;
 
+    private PermissionExpression permission;
+
     private Suggester suggester;
 
     private String tip;
 
+    private boolean asyncSafe;
+
+    //缓存的树信息, 树改变时失效. 缓存有效的node的祖先(PathInfo)或后代(LeafInfo)的缓存也一定有效
+    private PathInfo pathInfo;
+    private LeafInfo leafInfo;
+
     public CommandNode() {
     }
 
     public abstract ParseResult parse(LinkedContext context, StringArgs args);
 
-    public abstract int getRequiredArgsNum();
+    /**
+     * Parses like {@link #parse(LinkedContext, StringArgs)} and adds the value to the context.
+     * Nodes of primitive values override it to add them without creating a {@link ParseResult}.
+     *
+     * @return false if parsing failed, nothing is added then
+     */
+    public boolean parseInto(ArrayLinkedContext context, StringArgs args) {
+        ParseResult parseResult = parse(context, args);
+        if (parseResult.isFail())
+            return false;
+        context.add(this, parseResult);
+        return true;
+    }
 
-    public void collect(ContextNode node){
+    public abstract int getRequiredArgsNum();
 
+    /**
+     * Called before executing for the value of this node at the index, the value may be merged with previous values.
+     *
+     * @return the index of the value of this node after collecting
+     */
+    public int collect(LinkedContext context, int index) {
+        return index;
     }
 
     public CommandNode getParent() {
@@ -41,6 +75,42 @@ public abstract class CommandNode implements Cloneable, Comparable<CommandNode>
         return children;
     }
 
+    /**
+     * Returns the token this node matches exactly, nodes returning non null are indexed by their parent.
+     *
+     * @return the literal, or null if this node is not a literal
+     */
+    public String getLiteral() {
+        return null;
+    }
+
+    /**
+     * Returns the children which may match the token, in priority order: the literal children equal to the token if any,
+     * otherwise all non literal children.
+     *
+     * @param token the next arg, or null if there is no more arg
+     */
+    public List<CommandNode> getCandidateChildren(String token) {
+        if (literalChildren == null || token == null)
+            return token == null ? children : nonLiteralChildren;
+        List<CommandNode> literals = literalChildren.get(token);
+        return literals != null ? literals : nonLiteralChildren;
+    }
+
+    public boolean hasLiteralChildren() {
+        return literalCount > 0;
+    }
+
+    /**
+     * Returns whether some literal child does not match the token.
+     */
+    public boolean hasMismatchedLiteral(String token) {
+        if (literalCount == 0)
+            return false;
+        List<CommandNode> literals = token == null ? null : literalChildren.get(token);
+        return literalCount > (literals == null ? 0 : literals.size());
+    }
+
     public void addChild(CommandNode commandNode) {
         if (commandNode.executor != null) {
             for (CommandNode child : children) {
@@ -62,8 +132,31 @@ public abstract class CommandNode implements Cloneable, Comparable<CommandNode>
 
     private void add(CommandNode commandNode) {
         commandNode.setParent(this);
-        this.children.add(commandNode);
-        Collections.sort(children);
+        invalidateLeafInfo();
+        insert(children, commandNode);
+        String literal = commandNode.getLiteral();
+        if (literal == null) {
+            insert(nonLiteralChildren, commandNode);
+        } else {
+            if (literalChildren == null)
+                literalChildren = new HashMap<>();
+            insert(literalChildren.computeIfAbsent(literal, key -> new ArrayList<>(1)), commandNode);
+            literalCount++;
+        }
+    }
+
+    private static void insert(List<CommandNode> list, CommandNode node) {
+        //插入到相同优先级的node之后, 和稳定排序的结果一致
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (list.get(mid).compareTo(node) <= 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        list.add(low, node);
     }
 
     private CommandNode matchChild(CommandNode commandNode) {
@@ -76,7 +169,18 @@ public abstract class CommandNode implements Cloneable, Comparable<CommandNode>
 
     public void removeChild(CommandNode commandNode) {
         if (this.children.remove(commandNode)) {
+            String literal = commandNode.getLiteral();
+            if (literal == null) {
+                nonLiteralChildren.remove(commandNode);
+            } else {
+                List<CommandNode> literals = literalChildren.get(literal);
+                literals.remove(commandNode);
+                if (literals.isEmpty())
+                    literalChildren.remove(literal);
+                literalCount--;
+            }
             commandNode.setParent(null);
+            invalidateLeafInfo();
         }
     }
 
@@ -86,13 +190,109 @@ public abstract class CommandNode implements Cloneable, Comparable<CommandNode>
 
     protected void setParent(CommandNode parent) {
         this.parent = parent;
+        invalidatePathInfo();
+    }
+
+    /**
+     * @return the number of ancestors, 0 for the root
+     */
+    public int getDepth() {
+        return pathInfo().depth;
+    }
+
+    /**
+     * @return the args required by this node and all its ancestors
+     */
+    public int getRequiredArgsSum() {
+        return pathInfo().requiredArgsSum;
     }
 
-    public void setExecutor(Consumer<List<Object>> executor) {
+    public CommandNode getTopParent() {
+        return pathInfo().topParent;
+    }
+
+    /**
+     * @return the nodes without children in this subtree, this node itself if it has no children
+     */
+    public List<CommandNode> getLeaves() {
+        return leafInfo().leaves;
+    }
+
+    /**
+     * Returns whether the permissible has the permission of at least one leaf in this subtree.
+     */
+    public boolean hasAnyLeafPermission(Permissible permissible) {
+        LeafInfo leafInfo = leafInfo();
+        if (leafInfo.anyLeafWithoutPermission)
+            return true;
+        for (PermissionExpression permission : leafInfo.leafPermissions) {
+            if (permission.test(permissible))
+                return true;
+        }
+        return false;
+    }
+
+    private PathInfo pathInfo() {
+        PathInfo pathInfo = this.pathInfo;
+        if (pathInfo == null) {
+            if (parent == null) {
+                pathInfo = new PathInfo(0, getRequiredArgsNum(), this);
+            } else {
+                PathInfo parentInfo = parent.pathInfo();
+                pathInfo = new PathInfo(parentInfo.depth + 1, parentInfo.requiredArgsSum + getRequiredArgsNum(), parentInfo.topParent);
+            }
+            this.pathInfo = pathInfo;
+        }
+        return pathInfo;
+    }
+
+    private LeafInfo leafInfo() {
+        LeafInfo leafInfo = this.leafInfo;
+        if (leafInfo == null) {
+            if (children.isEmpty()) {
+                leafInfo = new LeafInfo(List.of(this), permission == null,
+                        permission == null ? List.of() : List.of(permission));
+            } else {
+                List<CommandNode> leaves = new ArrayList<>();
+                boolean anyLeafWithoutPermission = false;
+                Set<PermissionExpression> leafPermissions = new LinkedHashSet<>();
+                for (CommandNode child : children) {
+                    LeafInfo childInfo = child.leafInfo();
+                    leaves.addAll(childInfo.leaves);
+                    anyLeafWithoutPermission |= childInfo.anyLeafWithoutPermission;
+                    leafPermissions.addAll(childInfo.leafPermissions);
+                }
+                leafInfo = new LeafInfo(Collections.unmodifiableList(leaves), anyLeafWithoutPermission,
+                        anyLeafWithoutPermission ? List.of() : List.copyOf(leafPermissions));
+            }
+            this.leafInfo = leafInfo;
+        }
+        return leafInfo;
+    }
+
+    private void invalidatePathInfo() {
+        if (pathInfo == null)
+            return;
+        pathInfo = null;
+        for (CommandNode child : children) {
+            child.invalidatePathInfo();
+        }
+    }
+
+    private void invalidateLeafInfo() {
+        for (CommandNode node = this; node != null && node.leafInfo != null; node = node.parent) {
+            node.leafInfo = null;
+        }
+    }
+
+    /**
+     * @param executor receives the parsed arguments and returns the value returned by the handler, null for void handlers
+     */
+    public void setExecutor(Function<List<Object>, Object> executor) {
         this.executor = executor;
     }
 
-    public Consumer<List<Object>> getExecutor() {
+    public Function<List<Object>, Object> getExecutor() {
         return executor;
     }
 
@@ -102,6 +302,30 @@ public abstract class CommandNode implements Cloneable, Comparable<CommandNode>
 
     public void setPermissionExpression(String permission) {
         this.permissionExpression = permission;
+        this.permission = permission == null ? null : PermissionExpression.compile(permission);
+        invalidateLeafInfo();
+    }
+
+    /**
+     * @return compiled permission expression, or null if the node requires no permission
+     */
+    public PermissionExpression getPermission() {
+        return permission;
+    }
+
+    public boolean hasPermission(Permissible permissible) {
+        return permission == null || permission.test(permissible);
+    }
+
+    /**
+     * @see engine.command.anno.AsyncSafe
+     */
+    public boolean isAsyncSafe() {
+        return asyncSafe;
+    }
+
+    public void setAsyncSafe(boolean asyncSafe) {
+        this.asyncSafe = asyncSafe;
     }
 
     public Suggester getSuggester() {
@@ -133,6 +357,11 @@ public abstract class CommandNode implements Cloneable, Comparable<CommandNode>
             e.printStackTrace();
         }
         node.children = new ArrayList<>();
+        node.pathInfo = null;
+        node.leafInfo = null;
+        node.literalChildren = null;
+        node.literalCount = 0;
+        node.nonLiteralChildren = new ArrayList<>();
         for (CommandNode child : children) {
             node.addChild(child.clone());
         }
@@ -150,4 +379,31 @@ public abstract class CommandNode implements Cloneable, Comparable<CommandNode>
     }
 
     public abstract int priority();
+
+    private static final class PathInfo {
+
+        private final int depth;
+        private final int requiredArgsSum;
+        private final CommandNode topParent;
+
+        private PathInfo(int depth, int requiredArgsSum, CommandNode topParent) {
+            this.depth = depth;
+            this.requiredArgsSum = requiredArgsSum;
+            this.topParent = topParent;
+        }
+    }
+
+    private static final class LeafInfo {
+
+        private final List<CommandNode> leaves;
+        private final boolean anyLeafWithoutPermission;
+        //叶子节点的不同权限表达式, anyLeafWithoutPermission为true时为空
+        private final List<PermissionExpression> leafPermissions;
+
+        private LeafInfo(List<CommandNode> leaves, boolean anyLeafWithoutPermission, List<PermissionExpression> leafPermissions) {
+            this.leaves = leaves;
+            this.anyLeafWithoutPermission = anyLeafWithoutPermission;
+            this.leafPermissions = leafPermissions;
+        }
+    }
 }
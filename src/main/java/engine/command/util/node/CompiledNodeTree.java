@@ -0,0 +1,327 @@
+package engine.command.util.node;
+
+import engine.command.util.StringArgs;
+import engine.command.util.context.ArrayLinkedContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, array based snapshot of a {@link CommandNode} tree.
+ * <p>
+ * Every node gets an index (root is 0), children keep the priority order of {@link CommandNode#getChildren()}.
+ * Literal children are looked up by the next arg like {@link CommandNode#getCandidateChildren(String)}.
+ * Required args, depth and the deepest executable descendant are computed once, and the parse path is
+ * kept in one pooled {@link ArrayLinkedContext} which is reset instead of cloned.
+ * The matching state is reused per thread.
+ * <p>
+ * Matching follows the rules of the tree walk of {@link engine.command.anno.NodeAnnotationCommand}:
+ * the deepest executable node reached wins, on equal depth the one consuming more args, then the first in priority order.
+ * If no executable node is reached the deepest node where parsing stopped is returned by the same rules.
+ * Branches which can not beat the current executable match are skipped.
+ * <p>
+ * The tree is not updated when the source nodes change, compile again after modifying them.
+ */
+public final class CompiledNodeTree {
+
+    private static final String[] EMPTY_ARGS = new String[0];
+
+    //静态且不持有树, 否则ThreadLocal的值会引用作为key的树, 使其无法回收
+    private static final ThreadLocal<Matcher> MATCHERS = ThreadLocal.withInitial(Matcher::new);
+
+    private final CommandNode[] nodes;
+    private final int[] parent;
+    private final int[] childStart;
+    private final int[] childEnd;
+    private final int[] children;
+    private final int[] requiredArgsSum;
+    private final int[] depth;
+    private final boolean[] executable;
+    //子树中可执行node的最大深度和该深度下最多的args, 没有可执行node时为-1
+    private final int[] maxExecutableDepth;
+    private final int[] maxExecutableArgs;
+    //没有字面量子node时为null
+    private final LiteralIndex[] literalIndexes;
+
+    private CompiledNodeTree(List<CommandNode> nodes, List<int[]> childIndexes) {
+        int size = nodes.size();
+        this.nodes = nodes.toArray(new CommandNode[0]);
+        this.parent = new int[size];
+        this.childStart = new int[size];
+        this.childEnd = new int[size];
+        this.requiredArgsSum = new int[size];
+        this.depth = new int[size];
+        this.executable = new boolean[size];
+        this.maxExecutableDepth = new int[size];
+        this.maxExecutableArgs = new int[size];
+        this.literalIndexes = new LiteralIndex[size];
+
+        int childrenCount = 0;
+        for (int[] indexes : childIndexes) {
+            childrenCount += indexes.length;
+        }
+        this.children = new int[childrenCount];
+        int offset = 0;
+        parent[0] = -1;
+        for (int i = 0; i < size; i++) {
+            int[] indexes = childIndexes.get(i);
+            childStart[i] = offset;
+            System.arraycopy(indexes, 0, children, offset, indexes.length);
+            offset += indexes.length;
+            childEnd[i] = offset;
+            for (int child : indexes) {
+                parent[child] = i;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            CommandNode node = this.nodes[i];
+            if (!node.hasLiteralChildren())
+                continue;
+            Map<String, int[]> literals = new HashMap<>();
+            int[] nonLiterals = new int[0];
+            int literalCount = 0;
+            for (int j = childStart[i]; j < childEnd[i]; j++) {
+                int child = children[j];
+                String literal = this.nodes[child].getLiteral();
+                if (literal == null) {
+                    nonLiterals = append(nonLiterals, child);
+                } else {
+                    literals.put(literal, append(literals.getOrDefault(literal, new int[0]), child));
+                    literalCount++;
+                }
+            }
+            literalIndexes[i] = new LiteralIndex(Map.copyOf(literals), nonLiterals, literalCount);
+        }
+
+        //node按先序排列,父node的index总是小于子node
+        for (int i = 0; i < size; i++) {
+            executable[i] = this.nodes[i].canExecuteCommand();
+            if (i == 0) {
+                requiredArgsSum[i] = this.nodes[i].getRequiredArgsNum();
+            }
+            for (int j = childStart[i]; j < childEnd[i]; j++) {
+                int child = children[j];
+                requiredArgsSum[child] = requiredArgsSum[i] + this.nodes[child].getRequiredArgsNum();
+                depth[child] = depth[i] + 1;
+            }
+        }
+
+        for (int i = size - 1; i >= 0; i--) {
+            int maxDepth = -1;
+            int maxArgs = -1;
+            if (executable[i]) {
+                maxDepth = depth[i];
+                maxArgs = requiredArgsSum[i];
+            } else {
+                for (int j = childStart[i]; j < childEnd[i]; j++) {
+                    int child = children[j];
+                    if (maxExecutableDepth[child] > maxDepth) {
+                        maxDepth = maxExecutableDepth[child];
+                        maxArgs = maxExecutableArgs[child];
+                    } else if (maxExecutableDepth[child] == maxDepth) {
+                        maxArgs = Math.max(maxArgs, maxExecutableArgs[child]);
+                    }
+                }
+            }
+            maxExecutableDepth[i] = maxDepth;
+            maxExecutableArgs[i] = maxArgs;
+        }
+    }
+
+    private static int[] append(int[] array, int value) {
+        int[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = value;
+        return result;
+    }
+
+    public static CompiledNodeTree compile(CommandNode root) {
+        List<CommandNode> nodes = new ArrayList<>();
+        List<int[]> childIndexes = new ArrayList<>();
+        flatten(root, nodes, childIndexes);
+        return new CompiledNodeTree(nodes, childIndexes);
+    }
+
+    private static int flatten(CommandNode node, List<CommandNode> nodes, List<int[]> childIndexes) {
+        int index = nodes.size();
+        nodes.add(node);
+        childIndexes.add(null);
+        int[] indexes = new int[node.getChildren().size()];
+        int i = 0;
+        for (CommandNode child : node.getChildren()) {
+            indexes[i++] = flatten(child, nodes, childIndexes);
+        }
+        childIndexes.set(index, indexes);
+        return index;
+    }
+
+    /**
+     * Finds the node the args resolve to, see the class documentation for the rules.
+     * The parsed values of the path to the node are copied to the context.
+     * The returned node may be not executable or consume fewer args than given, callers report wrong usage for it.
+     *
+     * @return the matched node, or null if even the root failed to parse
+     */
+    public CommandNode match(ArrayLinkedContext context, String[] args) {
+        Matcher matcher = MATCHERS.get();
+        //参数解析中可能在同一线程匹配同一命令
+        if (matcher.inUse)
+            matcher = new Matcher();
+        ArrayLinkedContext path = ArrayLinkedContext.acquire(context.getSender());
+        ArrayLinkedContext stopped = ArrayLinkedContext.acquire(context.getSender());
+        try {
+            matcher.start(this, path, context, stopped, args != null ? args : EMPTY_ARGS);
+            matcher.parse(0);
+            if (matcher.best >= 0)
+                return nodes[matcher.best];
+            if (matcher.bestStopped >= 0) {
+                context.copyFrom(stopped);
+                return nodes[matcher.bestStopped];
+            }
+            return null;
+        } finally {
+            matcher.finish();
+            stopped.release();
+            path.release();
+        }
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public CommandNode getRoot() {
+        return nodes[0];
+    }
+
+    private static final class LiteralIndex {
+
+        //字面量 -> 子node
+        private final Map<String, int[]> literals;
+        private final int[] nonLiterals;
+        private final int literalCount;
+
+        private LiteralIndex(Map<String, int[]> literals, int[] nonLiterals, int literalCount) {
+            this.literals = literals;
+            this.nonLiterals = nonLiterals;
+            this.literalCount = literalCount;
+        }
+    }
+
+    private static final class Matcher {
+
+        private final StringArgs args = new StringArgs(EMPTY_ARGS);
+        private CompiledNodeTree tree;
+        private int argsLength;
+        private ArrayLinkedContext path;
+        private ArrayLinkedContext result;
+        private ArrayLinkedContext stopped;
+        private boolean inUse;
+        //到达的可执行node中最好的
+        private int best;
+        private int bestDepth;
+        private int bestArgs;
+        //没有可执行node时使用, 解析停止处最好的node
+        private int bestStopped;
+        private int stoppedDepth;
+        private int stoppedArgs;
+
+        private void start(CompiledNodeTree tree, ArrayLinkedContext path, ArrayLinkedContext result, ArrayLinkedContext stopped, String[] args) {
+            this.inUse = true;
+            this.tree = tree;
+            this.args.reset(args);
+            this.argsLength = args.length;
+            this.path = path;
+            this.result = result;
+            this.stopped = stopped;
+            this.best = -1;
+            this.bestStopped = -1;
+        }
+
+        private void finish() {
+            args.reset(EMPTY_ARGS);
+            tree = null;
+            path = null;
+            result = null;
+            stopped = null;
+            inUse = false;
+        }
+
+        private void parse(int node) {
+            if (args.getIndex() + tree.nodes[node].getRequiredArgsNum() > argsLength) {
+                stop(tree.parent[node]);
+                return;
+            }
+            if (!tree.nodes[node].parseInto(path, args)) {
+                stop(tree.parent[node]);
+                return;
+            }
+            if (tree.executable[node]) {
+                if (best < 0 || better(node, bestDepth, bestArgs)) {
+                    best = node;
+                    bestDepth = tree.depth[node];
+                    bestArgs = tree.requiredArgsSum[node];
+                    result.copyFrom(path);
+                }
+                return;
+            }
+            int index = args.getIndex();
+            int mark = path.mark();
+            String token = args.peek();
+            LiteralIndex literalIndex = tree.literalIndexes[node];
+            int[] candidates = null;
+            if (literalIndex != null && token != null) {
+                candidates = literalIndex.literals.get(token);
+                //按字面量索引跳过的子节点视为解析失败
+                if (literalIndex.literalCount > (candidates == null ? 0 : candidates.length))
+                    stop(node);
+                if (candidates == null)
+                    candidates = literalIndex.nonLiterals;
+            } else if (literalIndex != null) {
+                stop(node);
+            }
+            if (candidates != null) {
+                for (int child : candidates) {
+                    parseChild(child, index, mark);
+                }
+            } else {
+                for (int i = tree.childStart[node]; i < tree.childEnd[node]; i++) {
+                    parseChild(tree.children[i], index, mark);
+                }
+            }
+        }
+
+        private void parseChild(int child, int index, int mark) {
+            //已有可执行结果时, 不能胜过它的分支不需要解析
+            if (best >= 0 && !canBeatBest(child))
+                return;
+            parse(child);
+            args.setIndex(index);
+            path.reset(mark);
+        }
+
+        private boolean canBeatBest(int node) {
+            int maxDepth = tree.maxExecutableDepth[node];
+            return maxDepth > bestDepth || maxDepth == bestDepth && Math.min(tree.maxExecutableArgs[node], argsLength) > bestArgs;
+        }
+
+        private boolean better(int node, int currentDepth, int currentArgs) {
+            return tree.depth[node] > currentDepth || tree.depth[node] == currentDepth && tree.requiredArgsSum[node] > currentArgs;
+        }
+
+        private void stop(int node) {
+            //可执行结果总是优先, 此时不再需要记录
+            if (node < 0 || best >= 0)
+                return;
+            if (bestStopped < 0 || better(node, stoppedDepth, stoppedArgs)) {
+                bestStopped = node;
+                stoppedDepth = tree.depth[node];
+                stoppedArgs = tree.requiredArgsSum[node];
+                stopped.copyFrom(path);
+            }
+        }
+    }
+}
@@ -4,32 +4,68 @@ import engine.command.suggestion.Suggester;
 import engine.command.util.StringArgs;
 import engine.command.util.context.LinkedContext;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.*;
 
+/**
+ * Matches the name of an enum constant.
+ * <p>
+ * All lookup tables are built by the constructor and never modified, parsing is thread safe and does not use reflection.
+ * With {@code ignoreCase} names are compared case insensitively, names differing only by case must then be typed exactly.
+ * With {@code matchPrefix} an input which is the prefix of exactly one name matches that constant.
+ */
 public class EnumNode extends CommandNode {
 
     private final Class enumClass;
+    private final boolean ignoreCase;
+    private final boolean matchPrefix;
 
-    private List<String> enumNames;
+    private final List<String> enumNames;
 
-    private HashMap<String, Object> enumMap = new HashMap<>();
+    //名字 -> 解析结果, 结果不可变可以直接复用
+    private final Map<String, ParseResult> exactResults;
+    private final Map<String, ParseResult> foldedResults;
+    //排序后的名字, 用于前缀匹配
+    private final String[] sortedKeys;
+    private final ParseResult[] sortedResults;
+
+    private final Suggester suggester;
 
     public EnumNode(Class enumClass) {
+        this(enumClass, false, false);
+    }
+
+    public EnumNode(Class enumClass, boolean ignoreCase, boolean matchPrefix) {
+        if (!enumClass.isEnum())
+            throw new IllegalArgumentException(enumClass + " is not an enum");
         this.enumClass = enumClass;
-        try {
-            Object[] enums = (Object[]) enumClass.getMethod("values").invoke(null);
-            Method nameMethod = enumClass.getMethod("name");
-            ArrayList list = new ArrayList();
-            for(Object o : enums)
-                list.add(nameMethod.invoke(o));
-            enumNames = list;
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-            e.printStackTrace();
+        this.ignoreCase = ignoreCase;
+        this.matchPrefix = matchPrefix;
+
+        Enum<?>[] constants = (Enum<?>[]) enumClass.getEnumConstants();
+        String[] names = new String[constants.length];
+        Map<String, ParseResult> exact = new HashMap<>();
+        Map<String, ParseResult> folded = new HashMap<>();
+        Set<String> ambiguous = new HashSet<>();
+        for (int i = 0; i < constants.length; i++) {
+            names[i] = constants[i].name();
+            ParseResult result = ParseResult.success(constants[i]);
+            exact.put(names[i], result);
+            if (ignoreCase && folded.putIfAbsent(fold(names[i]), result) != null)
+                ambiguous.add(fold(names[i]));
         }
+        folded.keySet().removeAll(ambiguous);
+        this.enumNames = List.of(names);
+        this.exactResults = Map.copyOf(exact);
+        this.foldedResults = Map.copyOf(folded);
+
+        Map<String, ParseResult> keys = ignoreCase ? foldedResults : exactResults;
+        this.sortedKeys = keys.keySet().toArray(new String[0]);
+        Arrays.sort(sortedKeys);
+        this.sortedResults = new ParseResult[sortedKeys.length];
+        for (int i = 0; i < sortedKeys.length; i++)
+            sortedResults[i] = keys.get(sortedKeys[i]);
+
+        this.suggester = (sender, command, args) -> enumNames;
     }
 
     @Override
@@ -40,28 +76,48 @@ public class EnumNode extends CommandNode {
     @Override
     public ParseResult parse(LinkedContext context, StringArgs args) {
         String name = args.next();
-        if (!enumNames.contains(name)) {
+        ParseResult result = exactResults.get(name);
+        if (result != null)
+            return result;
+        if (!ignoreCase && !matchPrefix)
             return ParseResult.fail();
-        }
-        if (enumMap.containsKey(name)) {
-            return ParseResult.success(enumMap.get(name));
-        }
-        try {
-            Object o = enumClass.getMethod("valueOf", String.class).invoke(null, name);
-            enumMap.put(name, o);
-            return ParseResult.success(o);
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        } catch (InvocationTargetException e) {
-            e.printStackTrace();
-        } catch (NoSuchMethodException e) {
-            e.printStackTrace();
-        }
+        String key = ignoreCase ? fold(name) : name;
+        if (ignoreCase && (result = foldedResults.get(key)) != null)
+            return result;
+        if (matchPrefix && !key.isEmpty())
+            return matchPrefix(key);
         return ParseResult.fail();
     }
 
+    private ParseResult matchPrefix(String prefix) {
+        int index = Arrays.binarySearch(sortedKeys, prefix);
+        //key不存在时binarySearch返回-(插入位置)-1, 插入位置即第一个大于prefix的key
+        int first = index >= 0 ? index : -index - 1;
+        if (first >= sortedKeys.length || !sortedKeys[first].startsWith(prefix))
+            return ParseResult.fail();
+        if (first + 1 < sortedKeys.length && sortedKeys[first + 1].startsWith(prefix))
+            return ParseResult.fail();
+        return sortedResults[first];
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    public List<String> getEnumNames() {
+        return enumNames;
+    }
+
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    public boolean isMatchPrefix() {
+        return matchPrefix;
+    }
+
     public Suggester getSuggester() {
-        return (sender, command, args) -> enumNames;
+        return suggester;
     }
 
     @Override
@@ -72,7 +128,10 @@ public class EnumNode extends CommandNode {
     @Override
     public boolean same(CommandNode node) {
         if (super.same(node) && node instanceof EnumNode) {
-            return ((EnumNode) node).enumClass.equals(enumClass);
+            EnumNode enumNode = (EnumNode) node;
+            return enumNode.enumClass.equals(enumClass) &&
+                    enumNode.ignoreCase == ignoreCase &&
+                    enumNode.matchPrefix == matchPrefix;
         }
         return false;
     }
@@ -1,11 +1,8 @@
 package engine.command.util.node;
 
 import engine.command.util.StringArgs;
-import engine.command.util.context.ContextNode;
 import engine.command.util.context.LinkedContext;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.function.Function;
 
 public class MultiArgumentNode extends CommandNode {
@@ -31,20 +28,18 @@ public class MultiArgumentNode extends CommandNode {
     }
 
     @Override
-    public void collect(ContextNode node) {
-        List<Object> objectList = new ArrayList<>();
-        ContextNode headNode = node;
-        for (int i = 0; i < argsNum; i++) {
-            headNode = headNode.getPre();
+    public int collect(LinkedContext context, int index) {
+        //前argsNum个值和自身的值合并为一个值
+        int head = index - argsNum;
+        Object[] objects = new Object[argsNum + 1];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = context.getValueAt(head + i);
         }
-        ContextNode pre = headNode.getPre();
-        for (int i = 0; i < argsNum + 1; i++) {
-            objectList.add(headNode.getValue());
-            headNode = headNode.getNext();
+        for (int i = 0; i < objects.length; i++) {
+            context.remove(head);
         }
-        node.setValue(instanceFunction.apply(objectList.toArray()));
-        pre.setNext(node);
-        node.setPre(pre);
+        context.add(this, head, instanceFunction.apply(objects));
+        return head;
     }
 
     @Override
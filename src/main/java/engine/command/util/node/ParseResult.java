@@ -1,5 +1,7 @@
 package engine.command.util.node;
 
+import engine.command.util.context.PrimitiveType;
+
 public class ParseResult {
 
     private static final ParseResult EMPTY_SUCCESS = success(null);
@@ -25,10 +27,29 @@ public class ParseResult {
         return value;
     }
 
+    public boolean isPrimitive() {
+        return false;
+    }
+
+    public PrimitiveType getPrimitiveType() {
+        return null;
+    }
+
+    /**
+     * Unboxed value of a primitive result, see {@link PrimitiveType}.
+     */
+    public long getBits() {
+        return 0;
+    }
+
     public static ParseResult success(Object value) {
         return new ParseResult(true, value);
     }
 
+    public static ParseResult success(PrimitiveType primitiveType, long bits) {
+        return new Primitive(primitiveType, bits);
+    }
+
     public static ParseResult success() {
         return EMPTY_SUCCESS;
     }
@@ -36,4 +57,34 @@ public class ParseResult {
     public static ParseResult fail() {
         return FAIL;
     }
+
+    private static final class Primitive extends ParseResult {
+
+        private final long bits;
+
+        private Primitive(PrimitiveType primitiveType, long bits) {
+            super(true, primitiveType);
+            this.bits = bits;
+        }
+
+        @Override
+        public Object getValue() {
+            return getPrimitiveType().box(bits);
+        }
+
+        @Override
+        public boolean isPrimitive() {
+            return true;
+        }
+
+        @Override
+        public PrimitiveType getPrimitiveType() {
+            return (PrimitiveType) super.getValue();
+        }
+
+        @Override
+        public long getBits() {
+            return bits;
+        }
+    }
 }
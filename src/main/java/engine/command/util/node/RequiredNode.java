@@ -36,6 +36,11 @@ public class RequiredNode extends CommandNode {
         return require;
     }
 
+    @Override
+    public String getLiteral() {
+        return require;
+    }
+
     @Override
     public String toString() {
         return "RequiredNode{" +
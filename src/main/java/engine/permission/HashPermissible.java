@@ -14,6 +14,9 @@ public class HashPermissible implements Permissible {
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
 
+    //不可变副本, 权限变化时清空, 读取时重建
+    private volatile PermissionSnapshot snapshot = PermissionSnapshot.EMPTY;
+
     @Override
     public boolean hasPermission(@Nonnull String permission) {
         Validate.notEmpty(permission);
@@ -43,6 +46,7 @@ public class HashPermissible implements Permissible {
         Validate.notEmpty(permission);
         lock.writeLock().lock();
         permissionMap.put(permission, bool);
+        snapshot = null;
         lock.writeLock().unlock();
     }
 
@@ -50,6 +54,7 @@ public class HashPermissible implements Permissible {
     public void removePermission(String permission) {
         lock.writeLock().lock();
         permissionMap.remove(permission);
+        snapshot = null;
         lock.writeLock().unlock();
     }
 
@@ -57,11 +62,28 @@ public class HashPermissible implements Permissible {
     public void clearPermission() {
         lock.writeLock().lock();
         this.permissionMap.clear();
+        snapshot = PermissionSnapshot.EMPTY;
         lock.writeLock().unlock();
     }
 
     @Override
     public Map<String, Boolean> toPermissionMap() {
-        return Map.copyOf(permissionMap);
+        return permissionSnapshot().getPermissions();
+    }
+
+    @Override
+    public PermissionSnapshot permissionSnapshot() {
+        PermissionSnapshot snapshot = this.snapshot;
+        if (snapshot != null)
+            return snapshot;
+        lock.readLock().lock();
+        try {
+            //持有读锁时写入, 写操作只能在之后清空
+            snapshot = PermissionSnapshot.of(permissionMap);
+            this.snapshot = snapshot;
+            return snapshot;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 }
@@ -23,4 +23,13 @@ public interface Permissible {
     void clearPermission();
 
     Map<String, Boolean> toPermissionMap();
+
+    /**
+     * Immutable copy of the permission settings, equal settings give equal snapshots.
+     * Used as exact cache key. The default implementation copies the settings on every call,
+     * implementations should keep the snapshot until the settings change.
+     */
+    default PermissionSnapshot permissionSnapshot() {
+        return PermissionSnapshot.of(toPermissionMap());
+    }
 }
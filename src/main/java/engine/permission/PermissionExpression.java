@@ -0,0 +1,213 @@
+package engine.permission;
+
+import com.google.common.collect.MapMaker;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiled permission expression, such as {@code "player.admin | player.location & !player.muted"}.
+ * <p>
+ * Operators by precedence: {@code !} (not), {@code &} (and), {@code |} (or), parentheses group sub expressions.
+ * Evaluation short-circuits, so permissions which can not change the result are not looked up.
+ */
+public abstract class PermissionExpression {
+
+    //弱引用值, 不再使用的表达式(例如由用户输入构造的)会被回收
+    private static final ConcurrentMap<String, PermissionExpression> cache = new MapMaker().weakValues().makeMap();
+
+    private final String expression;
+
+    private PermissionExpression(String expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * Returns the compiled expression, expressions with the same text share one instance while it is referenced.
+     *
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public static PermissionExpression compile(@Nonnull String expression) {
+        PermissionExpression compiled = cache.get(expression);
+        if (compiled == null) {
+            compiled = new Parser(expression).parse();
+            PermissionExpression existing = cache.putIfAbsent(expression, compiled);
+            if (existing != null)
+                compiled = existing;
+        }
+        return compiled;
+    }
+
+    public abstract boolean test(Permissible permissible);
+
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private static final class Single extends PermissionExpression {
+
+        private final String permission;
+
+        private Single(String expression, String permission) {
+            super(expression);
+            this.permission = permission;
+        }
+
+        @Override
+        public boolean test(Permissible permissible) {
+            return permissible.hasPermission(permission);
+        }
+    }
+
+    private static final class Not extends PermissionExpression {
+
+        private final PermissionExpression operand;
+
+        private Not(String expression, PermissionExpression operand) {
+            super(expression);
+            this.operand = operand;
+        }
+
+        @Override
+        public boolean test(Permissible permissible) {
+            return !operand.test(permissible);
+        }
+    }
+
+    private static final class And extends PermissionExpression {
+
+        private final PermissionExpression[] operands;
+
+        private And(String expression, PermissionExpression[] operands) {
+            super(expression);
+            this.operands = operands;
+        }
+
+        @Override
+        public boolean test(Permissible permissible) {
+            for (PermissionExpression operand : operands) {
+                if (!operand.test(permissible))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class Or extends PermissionExpression {
+
+        private final PermissionExpression[] operands;
+
+        private Or(String expression, PermissionExpression[] operands) {
+            super(expression);
+            this.operands = operands;
+        }
+
+        @Override
+        public boolean test(Permissible permissible) {
+            for (PermissionExpression operand : operands) {
+                if (operand.test(permissible))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Parser {
+
+        private final String expression;
+        private int index;
+
+        private Parser(String expression) {
+            this.expression = expression;
+        }
+
+        private PermissionExpression parse() {
+            PermissionExpression result = parseOr();
+            skipWhitespace();
+            if (index < expression.length())
+                throw error("unexpected '" + expression.charAt(index) + "'");
+            return result;
+        }
+
+        private PermissionExpression parseOr() {
+            int start = index;
+            List<PermissionExpression> operands = new ArrayList<>();
+            operands.add(parseAnd());
+            while (accept('|')) {
+                operands.add(parseAnd());
+            }
+            if (operands.size() == 1)
+                return operands.get(0);
+            return new Or(text(start), operands.toArray(new PermissionExpression[0]));
+        }
+
+        private PermissionExpression parseAnd() {
+            int start = index;
+            List<PermissionExpression> operands = new ArrayList<>();
+            operands.add(parseUnary());
+            while (accept('&')) {
+                operands.add(parseUnary());
+            }
+            if (operands.size() == 1)
+                return operands.get(0);
+            return new And(text(start), operands.toArray(new PermissionExpression[0]));
+        }
+
+        private PermissionExpression parseUnary() {
+            int start = index;
+            if (accept('!')) {
+                PermissionExpression operand = parseUnary();
+                return new Not(text(start), operand);
+            }
+            if (accept('(')) {
+                PermissionExpression operand = parseOr();
+                if (!accept(')'))
+                    throw error("missing ')'");
+                return operand;
+            }
+            skipWhitespace();
+            int permissionStart = index;
+            while (index < expression.length() && !isOperator(expression.charAt(index))) {
+                index++;
+            }
+            String permission = expression.substring(permissionStart, index).trim();
+            if (permission.isEmpty())
+                throw error("missing permission");
+            return new Single(permission, permission);
+        }
+
+        private boolean accept(char c) {
+            skipWhitespace();
+            if (index < expression.length() && expression.charAt(index) == c) {
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (index < expression.length() && Character.isWhitespace(expression.charAt(index))) {
+                index++;
+            }
+        }
+
+        private String text(int start) {
+            return expression.substring(start, index).trim();
+        }
+
+        private static boolean isOperator(char c) {
+            return c == '|' || c == '&' || c == '!' || c == '(' || c == ')';
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("illegal permission expression \"" + expression + "\" at " + index + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package engine.permission;
+
+import java.util.Map;
+
+/**
+ * Immutable permission settings of a {@link Permissible} with a precomputed hash, used as exact cache key.
+ */
+public final class PermissionSnapshot {
+
+    public static final PermissionSnapshot EMPTY = new PermissionSnapshot(Map.of());
+
+    private final Map<String, Boolean> permissions;
+    private final int hash;
+
+    private PermissionSnapshot(Map<String, Boolean> permissions) {
+        this.permissions = permissions;
+        this.hash = permissions.hashCode();
+    }
+
+    /**
+     * Copies the settings, an immutable map is used as it is.
+     */
+    public static PermissionSnapshot of(Map<String, Boolean> permissions) {
+        return permissions.isEmpty() ? EMPTY : new PermissionSnapshot(Map.copyOf(permissions));
+    }
+
+    public Map<String, Boolean> getPermissions() {
+        return permissions;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PermissionSnapshot)) return false;
+        PermissionSnapshot that = (PermissionSnapshot) o;
+        return hash == that.hash && permissions.equals(that.permissions);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionSnapshot" + permissions;
+    }
+}
@@ -0,0 +1,249 @@
+package engine.permission;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Permissible backed by an immutable trie of dot separated permission segments.
+ * <p>
+ * Reads walk the current trie without locking or allocating, writes copy the changed path and publish a new snapshot.
+ * Like {@link HashPermissible} a permission is inherited by its children, the most specific setting wins.
+ * A {@code *} segment matches any child of its parent but not the parent itself,
+ * so {@code "world.*"} grants {@code "world.edit"} but not {@code "world"}.
+ */
+public class TriePermissible implements Permissible {
+
+    public static final String WILDCARD = "*";
+
+    private static final Interner<String> segmentInterner = Interners.newWeakInterner();
+
+    private static final Node EMPTY = new Node("", null, new Node[0]);
+
+    private volatile Snapshot snapshot = new Snapshot(EMPTY, Map.of());
+
+    @Override
+    public boolean hasPermission(@Nonnull String permission) {
+        Validate.notEmpty(permission);
+        Snapshot snapshot = this.snapshot;
+        // 直接设置的权限就是最具体的结果, String的hash有缓存
+        Boolean value = snapshot.permissions.get(permission);
+        if (value != null)
+            return value;
+        Node node = snapshot.root;
+        boolean result = false;
+        int start = 0;
+        int length = permission.length();
+        while (true) {
+            int hash = 0;
+            int end = start;
+            char c;
+            while (end < length && (c = permission.charAt(end)) != '.') {
+                hash = 31 * hash + c;
+                end++;
+            }
+            Node wildcard = node.wildcard;
+            if (wildcard != null && wildcard.value != null)
+                result = wildcard.value;
+            node = node.getChild(permission, start, end, hash);
+            if (node == null)
+                return result;
+            if (node.value != null)
+                result = node.value;
+            if (end == length)
+                return result;
+            start = end + 1;
+        }
+    }
+
+    @Override
+    public synchronized void setPermission(@Nonnull String permission, boolean bool) {
+        Validate.notEmpty(permission);
+        Map<String, Boolean> permissions = new HashMap<>(snapshot.permissions);
+        permissions.put(permission, bool);
+        snapshot = new Snapshot(set(snapshot.root, permission, 0, bool), permissions);
+    }
+
+    private static Node set(Node node, String permission, int start, Boolean value) {
+        if (start > permission.length())
+            return node.with(value);
+        int end = permission.indexOf('.', start);
+        if (end == -1)
+            end = permission.length();
+        Node child = node.getChild(permission, start, end, permission.substring(start, end).hashCode());
+        if (child == null) {
+            if (value == null)
+                return node;
+            child = new Node(segmentInterner.intern(permission.substring(start, end)), null, EMPTY.children);
+        }
+        return node.withChild(set(child, permission, end + 1, value));
+    }
+
+    @Override
+    public synchronized void removePermission(String permission) {
+        if (permission == null || !snapshot.permissions.containsKey(permission))
+            return;
+        Map<String, Boolean> permissions = new HashMap<>(snapshot.permissions);
+        permissions.remove(permission);
+        snapshot = new Snapshot(set(snapshot.root, permission, 0, null), permissions);
+    }
+
+    @Override
+    public synchronized void clearPermission() {
+        snapshot = new Snapshot(EMPTY, Map.of());
+    }
+
+    @Override
+    public Map<String, Boolean> toPermissionMap() {
+        return snapshot.permissions;
+    }
+
+    @Override
+    public PermissionSnapshot permissionSnapshot() {
+        Snapshot snapshot = this.snapshot;
+        PermissionSnapshot permissionSnapshot = snapshot.permissionSnapshot;
+        if (permissionSnapshot == null)
+            snapshot.permissionSnapshot = permissionSnapshot = PermissionSnapshot.of(snapshot.permissions);
+        return permissionSnapshot;
+    }
+
+    private static final class Snapshot {
+
+        private final Node root;
+        private final Map<String, Boolean> permissions;
+        //第一次读取时创建, 不可变所以并发创建也没有问题
+        private volatile PermissionSnapshot permissionSnapshot;
+
+        private Snapshot(Node root, Map<String, Boolean> permissions) {
+            this.root = root;
+            this.permissions = Map.copyOf(permissions);
+        }
+    }
+
+    private static final class Node {
+
+        private final String segment;
+        private final Boolean value;
+        //按segment排序
+        private final Node[] children;
+        //开放寻址的查找表, 长度为2的幂
+        private final Node[] table;
+        private final Node wildcard;
+
+        private Node(String segment, Boolean value, Node[] children) {
+            this.segment = segment;
+            this.value = value;
+            this.children = children;
+            this.table = buildTable(children);
+            int wildcardIndex = indexOf(WILDCARD);
+            this.wildcard = wildcardIndex >= 0 ? children[wildcardIndex] : null;
+        }
+
+        private static Node[] buildTable(Node[] children) {
+            if (children.length == 0)
+                return children;
+            Node[] table = new Node[Integer.highestOneBit(children.length * 2 - 1) << 1];
+            int mask = table.length - 1;
+            for (Node child : children) {
+                int index = spread(child.segment.hashCode()) & mask;
+                while (table[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = child;
+            }
+            return table;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private Node getChild(String permission, int start, int end, int hash) {
+            if (table.length == 0)
+                return null;
+            int mask = table.length - 1;
+            int index = spread(hash) & mask;
+            Node child;
+            while ((child = table[index]) != null) {
+                String segment = child.segment;
+                if (segment.hashCode() == hash && matches(segment, permission, start, end))
+                    return child;
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        private static boolean matches(String segment, String permission, int start, int end) {
+            if (segment.length() != end - start)
+                return false;
+            for (int i = 0; i < segment.length(); i++) {
+                if (segment.charAt(i) != permission.charAt(start + i))
+                    return false;
+            }
+            return true;
+        }
+
+        private Node with(Boolean value) {
+            return new Node(segment, value, children);
+        }
+
+        /**
+         * Replaces the child with the same segment, empty children are removed.
+         */
+        private Node withChild(Node child) {
+            boolean empty = child.value == null && child.children.length == 0;
+            int index = indexOf(child.segment);
+            Node[] newChildren;
+            if (index >= 0) {
+                if (empty) {
+                    newChildren = new Node[children.length - 1];
+                    System.arraycopy(children, 0, newChildren, 0, index);
+                    System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+                } else {
+                    newChildren = children.clone();
+                    newChildren[index] = child;
+                }
+            } else {
+                if (empty)
+                    return this;
+                int insert = -index - 1;
+                newChildren = new Node[children.length + 1];
+                System.arraycopy(children, 0, newChildren, 0, insert);
+                newChildren[insert] = child;
+                System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            }
+            return new Node(segment, value, newChildren);
+        }
+
+        private int indexOf(String segment) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int compare = children[mid].segment.compareTo(segment);
+                if (compare < 0) {
+                    low = mid + 1;
+                } else if (compare > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        @Override
+        public String toString() {
+            return "Node{" +
+                    "segment='" + segment + '\'' +
+                    ", value=" + value +
+                    ", children=" + Arrays.toString(children) +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package main;
+
+import engine.command.util.Type;
+import engine.command.util.context.ArgumentList;
+import engine.command.util.context.ArrayLinkedContext;
+import engine.command.util.context.PrimitiveType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ArrayLinkedContextTest {
+
+    @Test
+    void markAndReset() {
+        TestSender sender = new TestSender("context", null, null);
+        ArrayLinkedContext context = new ArrayLinkedContext(sender, 1);
+        context.add(null, "a");
+        int mark = context.mark();
+        context.add(null, 1);
+        context.add(null, "b");
+        Assertions.assertEquals(3, context.size());
+        Assertions.assertEquals(1, context.first(Type.of(Integer.class)));
+        Assertions.assertEquals(2, context.last(Type.of(String.class)));
+
+        context.reset(mark);
+        Assertions.assertEquals(List.of("a"), context.valueToArray());
+        context.add(null, 0, 2);
+        context.add(null, 3);
+        context.remove(1);
+        Assertions.assertEquals(List.of(2, 3), context.valueToArray());
+        Assertions.assertEquals(List.of(2, 3), context.clone().valueToArray());
+    }
+
+    @Test
+    void primitives() {
+        TestSender sender = new TestSender("context", null, null);
+        ArrayLinkedContext context = new ArrayLinkedContext(sender, 1);
+        List<Object> expected = new ArrayList<>();
+        //超过16个位置的基本类型值被装箱
+        for (int i = 0; i < 20; i++) {
+            if (i % 5 == 4) {
+                context.add(null, "s" + i);
+                expected.add("s" + i);
+            } else {
+                context.addPrimitive(null, PrimitiveType.INT, i);
+                expected.add(i);
+            }
+        }
+        ArgumentList list = (ArgumentList) context.valueToArray();
+        Assertions.assertEquals(expected, list);
+        Assertions.assertTrue(list.isPrimitive(0));
+        Assertions.assertFalse(list.isPrimitive(4));
+        Assertions.assertFalse(list.isPrimitive(18));
+        Assertions.assertEquals(18L, list.getLong(18));
+
+        context.clear();
+        context.addPrimitive(null, PrimitiveType.DOUBLE, Double.doubleToRawLongBits(1.5));
+        context.addPrimitive(null, PrimitiveType.BOOLEAN, 1);
+        ArgumentList primitives = (ArgumentList) context.valueToArray();
+        Assertions.assertEquals(List.of(1.5, true), primitives);
+        Assertions.assertEquals(1.5f, primitives.getFloat(0));
+        Assertions.assertTrue(primitives.getBoolean(1));
+        Assertions.assertThrows(ClassCastException.class, () -> primitives.getBoolean(0));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> primitives.get(2));
+    }
+
+    @Test
+    void pool() {
+        TestSender sender = new TestSender("context", null, null);
+        ArrayLinkedContext context = ArrayLinkedContext.acquire(sender);
+        context.add(null, "a");
+        ArrayLinkedContext other = ArrayLinkedContext.acquire(sender);
+        Assertions.assertNotSame(context, other);
+        Assertions.assertEquals(0, other.size());
+        other.release();
+        context.release();
+
+        ArrayLinkedContext reused = ArrayLinkedContext.acquire(sender);
+        Assertions.assertSame(context, reused);
+        Assertions.assertEquals(0, reused.size());
+        Assertions.assertSame(sender, reused.getSender());
+        reused.release();
+    }
+}
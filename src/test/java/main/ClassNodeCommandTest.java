@@ -12,6 +12,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ClassNodeCommandTest {
 
@@ -48,6 +49,80 @@ public class ClassNodeCommandTest {
         Assertions.assertEquals(message, testSender.getSenderName());
     }
 
+    @Test
+    void handlerScope() {
+        AtomicInteger instances = new AtomicInteger();
+        for (HandlerScope scope : HandlerScope.values()) {
+            instances.set(0);
+            SimpleCommandManager commandManager = new SimpleCommandManager();
+            ClassAnnotationCommand.getBuilder(commandManager)
+                    .caseCommand("scope", "", "", () -> {
+                        instances.incrementAndGet();
+                        return new Runnable() {
+                            @Sender
+                            public CommandSender sender;
+
+                            public int i;
+
+                            @Override
+                            public void run() {
+                                sender.sendMessage(String.valueOf(i));
+                            }
+                        };
+                    }, scope)
+                    .register();
+            commandManager.execute(testSender, "scope 1");
+            Assertions.assertEquals("1", message);
+            commandManager.execute(testSender, "scope 2");
+            Assertions.assertEquals("2", message);
+            Assertions.assertEquals(scope == HandlerScope.PER_EXECUTION ? 3 : 1, instances.get());
+        }
+    }
+
+    public static class PooledHandler implements Runnable {
+
+        @Sender
+        public CommandSender sender;
+
+        public String s;
+
+        @Override
+        public void run() {
+            sender.sendMessage(s);
+        }
+    }
+
+    public static class ConstantHandler implements Runnable {
+
+        public static final String NAME = "constant";
+
+        public String s;
+
+        @Override
+        public void run() {
+        }
+    }
+
+    @Test
+    void pooledHandler() {
+        SimpleCommandManager commandManager = new SimpleCommandManager();
+        PooledHandler handler = new PooledHandler();
+        ClassAnnotationCommand.getBuilder(commandManager)
+                .caseCommand("pooled", "", "", () -> handler, HandlerScope.POOLED)
+                .register();
+        commandManager.execute(testSender, "pooled a");
+        Assertions.assertEquals("a", message);
+        //归还到池中的实例不再引用sender和参数
+        Assertions.assertNull(handler.sender);
+        Assertions.assertNull(handler.s);
+
+        IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class, () ->
+                ClassAnnotationCommand.getBuilder(new SimpleCommandManager())
+                        .caseCommand("constant", new ConstantHandler())
+                        .register());
+        Assertions.assertTrue(exception.getMessage().contains("NAME"));
+    }
+
     @Test
     void test() {
         Entity entitySender = new Entity() {
@@ -0,0 +1,614 @@
+package main;
+
+import engine.command.CommandAnalysis;
+import engine.command.CommandBatchResult;
+import engine.command.CommandExecution;
+import engine.command.CommandFailure;
+import engine.command.CommandListener;
+import engine.command.CommandRateLimiter;
+import engine.command.CommandSender;
+import engine.command.CommandScriptRunner;
+import engine.command.CompletionSession;
+import engine.command.CommandResult;
+import engine.command.anno.ArgumentHandler;
+import engine.command.anno.AsyncSafe;
+import engine.command.anno.Command;
+import engine.command.anno.Cost;
+import engine.command.anno.MethodAnnotationCommand;
+import engine.command.anno.NodeAnnotationCommand;
+import engine.command.argument.Argument;
+import engine.command.argument.ArgumentManager;
+import engine.command.argument.SimpleArgumentManager;
+import engine.command.impl.SimpleCommandManager;
+import engine.command.metrics.CommandMetrics;
+import engine.command.metrics.CommandMetricsSnapshot;
+import engine.command.metrics.SimpleCommandMetrics;
+import engine.command.simple.SimpleCommand;
+import engine.command.suggestion.Suggester;
+import engine.command.suggestion.SuggestionCache;
+import engine.command.util.CommandExecutors;
+import engine.command.util.CommandNodeUtil;
+import engine.command.util.asm.InvokerMode;
+import engine.command.util.context.Context;
+import engine.command.util.context.LinkedContext;
+import engine.command.util.node.CommandNode;
+import engine.command.util.node.RequiredNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class CommandManagerTest {
+
+    @Test
+    void registerAll() {
+        SimpleCommandManager commandManager = new SimpleCommandManager();
+        commandManager.registerAll(List.of(new SimpleCommand("a"), new SimpleCommand("B")));
+        Assertions.assertTrue(commandManager.hasCommand("A"));
+        Assertions.assertTrue(commandManager.hasCommand("b"));
+
+        //有重复的命令时整批都不注册
+        Assertions.assertThrows(RuntimeException.class,
+                () -> commandManager.registerAll(List.of(new SimpleCommand("c"), new SimpleCommand("b"))));
+        Assertions.assertFalse(commandManager.hasCommand("c"));
+
+        commandManager.registerAll(List.of(new SimpleCommand("Abc"), new SimpleCommand("abd"), new SimpleCommand("ac")));
+        Assertions.assertEquals(List.of("abc", "abd"), commandManager.complete(testSender(), "AB"));
+        Assertions.assertEquals(List.of("a", "abc"), commandManager.completeCommandName("A", 2));
+        Assertions.assertEquals(List.of(), commandManager.completeCommandName("c", 10));
+        commandManager.unregisterAll(List.of("abc", "abd", "ac"));
+
+        commandManager.unregisterCommand("A");
+        Assertions.assertFalse(commandManager.hasCommand("a"));
+        commandManager.unregisterAll(List.of("b"));
+        Assertions.assertTrue(commandManager.registeredCommands().isEmpty());
+    }
+
+    @Test
+    void extendRegistered() {
+        SimpleCommandManager commandManager = new SimpleCommandManager();
+        MethodAnnotationCommand.getBuilder(commandManager)
+                .addCommandHandler(new ResultHandler())
+                .register();
+        engine.command.Command registered = commandManager.getCommand("add").orElseThrow();
+        int leaves = CommandNodeUtil.getAllLeafNode(((NodeAnnotationCommand) registered).getNode()).size();
+
+        MethodAnnotationCommand.getBuilder(commandManager)
+                .addCommandHandler(new ExtraAddHandler())
+                .register();
+        //已注册的命令不被修改, 由副本替换
+        engine.command.Command replaced = commandManager.getCommand("add").orElseThrow();
+        Assertions.assertNotSame(registered, replaced);
+        Assertions.assertEquals(leaves, CommandNodeUtil.getAllLeafNode(((NodeAnnotationCommand) registered).getNode()).size());
+        Assertions.assertEquals(1, registered.getCost());
+        Assertions.assertEquals(2, replaced.getCost());
+        Assertions.assertEquals(5, commandManager.execute(testSender(), "add 5", new CommandResult()).getValue());
+        Assertions.assertEquals(3, commandManager.execute(testSender(), "add 1 2", new CommandResult()).getValue());
+
+        Assertions.assertThrows(ConcurrentModificationException.class,
+                () -> commandManager.replaceAll(List.of(registered), List.of(new SimpleCommand("add"))));
+        Assertions.assertSame(replaced, commandManager.getCommand("add").orElseThrow());
+    }
+
+    public static class ExtraAddHandler {
+
+        @Cost(2)
+        @Command("add")
+        public int add(int a) {
+            return a;
+        }
+    }
+
+    private static TestSender testSender() {
+        return new TestSender("test", null, null);
+    }
+
+    @Test
+    void executeAsync() throws Exception {
+        SimpleCommandManager commandManager = new SimpleCommandManager();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        commandManager.setAsyncExecutor(CommandExecutors.bounded(pool, 1));
+        AsyncHandler handler = new AsyncHandler();
+        MethodAnnotationCommand.getBuilder(commandManager)
+                .addCommandHandler(handler)
+                .register();
+        SimpleCommandMetrics metrics = new SimpleCommandMetrics();
+        commandManager.setMetrics(metrics);
+        List<CommandFailure> failures = new ArrayList<>();
+        TestSender sender = new TestSender("async", null, failures::add);
+
+        CommandResult result = commandManager.executeAsync(sender, "sync a").get();
+        Assertions.assertTrue(result.isSuccess());
+        Assertions.assertSame(Thread.currentThread(), handler.thread);
+
+        commandManager.executeAsync(sender, "async a").get(5, TimeUnit.SECONDS);
+        Assertions.assertNotSame(Thread.currentThread(), handler.thread);
+
+        //解析失败时不会交给executor
+        result = commandManager.executeAsync(sender, "async a b c").get();
+        Assertions.assertEquals(CommandFailure.Type.COMMAND_WRONG_USAGE, result.getFailure());
+        Assertions.assertEquals(CommandFailure.Type.COMMAND_NOT_FOUND, commandManager.executeAsync(sender, "none").get().getFailure());
+
+        //等待上一个任务释放bounded executor的许可
+        pool.submit(() -> {
+        }).get();
+        CountDownLatch latch = new CountDownLatch(1);
+        handler.latch = latch;
+        CompletableFuture<CommandResult> blocked = commandManager.executeAsync(sender, "async a");
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+                () -> commandManager.executeAsync(sender, "async a").get());
+        Assertions.assertTrue(exception.getCause() instanceof RejectedExecutionException);
+        Assertions.assertEquals(CommandFailure.Type.REJECTED, failures.get(failures.size() - 1).getType());
+        latch.countDown();
+        Assertions.assertTrue(blocked.get(5, TimeUnit.SECONDS).isSuccess());
+        Assertions.assertEquals(Map.of(CommandFailure.Type.COMMAND_WRONG_USAGE, 1L, CommandFailure.Type.REJECTED, 1L),
+                metrics.snapshot().get("async").getFailures());
+        pool.shutdown();
+    }
+
+    public static class AsyncHandler {
+
+        volatile Thread thread;
+        volatile CountDownLatch latch;
+
+        @Command("sync")
+        public void sync(String s) {
+            thread = Thread.currentThread();
+        }
+
+        @AsyncSafe
+        @Command("async")
+        public void async(String s) throws InterruptedException {
+            thread = Thread.currentThread();
+            if (latch != null)
+                latch.await();
+        }
+    }
+
+    @Test
+    void executeResult() {
+        for (InvokerMode mode : InvokerMode.values()) {
+            SimpleCommandManager commandManager = new SimpleCommandManager();
+            MethodAnnotationCommand.getBuilder(commandManager)
+                    .setInvokerMode(mode)
+                    .addCommandHandler(new ResultHandler())
+                    .register();
+            TestSender sender = new TestSender("result", null, failure -> Assertions.fail("failure sent: " + failure));
+            CommandResult result = new CommandResult();
+
+            Assertions.assertSame(result, commandManager.execute(sender, "add 1 2", result));
+            Assertions.assertTrue(result.isSuccess());
+            Assertions.assertEquals(3, result.getValue());
+            Assertions.assertNotNull(result.getNode());
+            Assertions.assertTrue(result.getElapsedNanos() > 0);
+
+            commandManager.execute(sender, "add 1", result);
+            Assertions.assertEquals(CommandFailure.Type.COMMAND_WRONG_USAGE, result.getFailure());
+            Assertions.assertNull(result.getValue());
+
+            commandManager.execute(sender, "none", result);
+            Assertions.assertEquals(CommandFailure.Type.COMMAND_NOT_FOUND, result.getFailure());
+            Assertions.assertNull(result.getCommand());
+
+            commandManager.execute(sender, "fail x", result);
+            Assertions.assertEquals(CommandFailure.Type.COMMAND_EXCEPTION, result.getFailure());
+            Assertions.assertEquals(IllegalStateException.class, result.getException().getClass());
+
+            commandManager.execute(sender, "primitives -7 9000000000 12 1.5 -2.25e3 true", result);
+            Assertions.assertEquals("-7 9000000000 12 1.5 -2250.0 true", result.getValue());
+            commandManager.execute(sender, "primitives 1 2 40000 1 1 true", result);
+            Assertions.assertEquals(CommandFailure.Type.COMMAND_WRONG_USAGE, result.getFailure());
+        }
+    }
+
+    @Test
+    void executeBatch() {
+        SimpleCommandManager commandManager = new SimpleCommandManager();
+        MethodAnnotationCommand.getBuilder(commandManager)
+                .addCommandHandler(new ResultHandler())
+                .register();
+        TestSender sender = new TestSender("batch", null, failure -> Assertions.fail("failure sent: " + failure));
+
+        CommandBatchResult result = commandManager.executeBatch(sender, List.of("add 1 2", "add 3 4", "add 1", "none", "add 5 6"));
+        Assertions.assertEquals(5, result.size());
+        Assertions.assertEquals(3, result.getSuccessCount());
+        Assertions.assertFalse(result.isSuccess());
+        Assertions.assertTrue(result.isSuccess(1));
+        Assertions.assertEquals(CommandFailure.Type.COMMAND_WRONG_USAGE, result.getFailure(2));
+        Assertions.assertEquals(CommandFailure.Type.COMMAND_NOT_FOUND, result.getFailure(3));
+        Assertions.assertTrue(result.isSuccess(4));
+
+        Assertions.assertTrue(commandManager.executeBatch(sender, Stream.of("add 1 2", "ADD 2 3")).isSuccess());
+    }
+
+    public static class ResultHandler {
+
+        @Command("add")
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        @Command("fail")
+        public void fail(String s) {
+            throw new IllegalStateException(s);
+        }
+
+        @Command("primitives")
+        public String primitives(int i, long l, short s, float f, double d, boolean b) {
+            return i + " " + l + " " + s + " " + f + " " + d + " " + b;
+        }
+    }
+
+    @Test
+    void scriptRunner() throws Exception {
+        SimpleCommandManager commandManager = new SimpleCommandManager();
+        ScriptHandler handler = new ScriptHandler();
+        MethodAnnotationCommand.getBuilder(commandManager)
+                .addCommandHandler(handler)
+                .register();
+        TestSender sender = new TestSender("script", null, failure -> Assertions.fail("failure sent: " + failure));
+        Path script = Files.createTempFile("script", ".cap");
+        try {
+            Files.write(script, ("\uFEFF# setup\r\n" +
+                    "echo \"a b\"\u3000c\r\n" +
+                    "\n" +
+                    "count 1\n" +
+                    "count 2\n" +
+                    "none\n" +
+                    "echo x y z\n" +
+                    "count 3").getBytes(StandardCharsets.UTF_8));
+            CommandScriptRunner runner = new CommandScriptRunner(commandManager);
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                for (Executor parallelExecutor : new Executor[]{null, executor}) {
+                    handler.echoed.clear();
+                    handler.counted.set(0);
+                    runner.setParallelExecutor(parallelExecutor);
+                    CommandScriptRunner.Result result = runner.run(sender, script);
+                    Assertions.assertEquals(6, result.getExecuted());
+                    Assertions.assertEquals(2, result.getFailureCount());
+                    Assertions.assertEquals(6, result.getFailures().get(0).getLineNumber());
+                    Assertions.assertEquals(CommandFailure.Type.COMMAND_NOT_FOUND, result.getFailures().get(0).getType());
+                    Assertions.assertEquals(7, result.getFailures().get(1).getLineNumber());
+                    Assertions.assertEquals(CommandFailure.Type.COMMAND_WRONG_USAGE, result.getFailures().get(1).getType());
+                    Assertions.assertEquals(List.of("a b|c"), handler.echoed);
+                    Assertions.assertEquals(3, handler.counted.get());
+                }
+
+                //executor拒绝的行记为失败, 不中断脚本
+                executor.shutdown();
+                handler.counted.set(0);
+                CommandScriptRunner.Result result = runner.run(sender, script);
+                Assertions.assertEquals(6, result.getExecuted());
+                Assertions.assertEquals(5, result.getFailureCount());
+                Assertions.assertEquals(4, result.getFailures().get(0).getLineNumber());
+                Assertions.assertEquals(CommandFailure.Type.REJECTED, result.getFailures().get(0).getType());
+                Assertions.assertEquals(CommandFailure.Type.REJECTED, result.getFailures().get(4).getType());
+                Assertions.assertEquals(0, handler.counted.get());
+            } finally {
+                executor.shutdown();
+            }
+        } finally {
+            Files.delete(script);
+        }
+    }
+
+    @Test
+    void metrics() {
+        SimpleCommandManager commandManager = new SimpleCommandManager();
+        MethodAnnotationCommand.getBuilder(commandManager)
+                .addCommandHandler(new ResultHandler())
+                .register();
+        SimpleCommandMetrics metrics = new SimpleCommandMetrics();
+        commandManager.setMetrics(metrics);
+        TestSender sender = new TestSender("metrics", null, failure -> {
+        });
+
+        commandManager.execute(sender, "add 1 2");
+        commandManager.execute(sender, "add 3 4", new CommandResult());
+        commandManager.execute(sender, "add 1");
+        commandManager.execute(sender, "none");
+        commandManager.execute(sender, "none2", new CommandResult());
+        commandManager.complete(sender, "add 1 ");
+
+        Map<String, CommandMetricsSnapshot> snapshot = metrics.snapshot();
+        CommandMetricsSnapshot add = snapshot.get("add");
+        Assertions.assertEquals(3, add.getExecutions());
+        Assertions.assertEquals(Map.of(CommandFailure.Type.COMMAND_WRONG_USAGE, 1L), add.getFailures());
+        Assertions.assertEquals(2, add.getHandler().getCount());
+        Assertions.assertEquals(1, add.getSuggestion().getCount());
+        Assertions.assertTrue(add.getParse().getPercentileNanos(50) <= add.getParse().getMaxNanos());
+        Assertions.assertEquals(2, add.getNodes().get("add <Integer> <Integer>").getExecutions());
+        Assertions.assertEquals(1, add.getNodes().get("add <Integer>").getFailureCount());
+        //未知命令共用一个条目
+        Assertions.assertEquals(2, snapshot.get(CommandMetrics.UNKNOWN_COMMAND).getFailureCount());
+        Assertions.assertFalse(snapshot.containsKey("none"));
+        Assertions.assertEquals(3L, metrics.getExecutions().get("add"));
+
+        //用法相同的node合并统计
+        SimpleCommandMetrics merged = new SimpleCommandMetrics();
+        RequiredNode first = new RequiredNode("x");
+        RequiredNode second = new RequiredNode("x");
+        merged.recordExecution("cmd", first, null, 10, 20);
+        merged.recordExecution("cmd", first, null, 10, 20);
+        merged.recordExecution("cmd", second, CommandFailure.Type.PERMISSION_NOT_ENOUGH, 30, 0);
+        CommandMetricsSnapshot node = merged.snapshot().get("cmd").getNodes().get("cmd x");
+        Assertions.assertEquals(3, node.getExecutions());
+        Assertions.assertEquals(1, node.getFailureCount());
+        Assertions.assertEquals(3, node.getParse().getCount());
+        Assertions.assertEquals(30, node.getParse().getMaxNanos());
+        Assertions.assertEquals(2, node.getHandler().getCount());
+    }
+
+    @Test
+    void listeners() {
+        SimpleCommandManager commandManager = new SimpleCommandManager();
+        MethodAnnotationCommand.getBuilder(commandManager)
+                .addCommandHandler(new ResultHandler())
+                .register();
+        List<String> events = new ArrayList<>();
+        CommandListener listener = new CommandListener() {
+            @Override
+            public void onPreParse(CommandSender sender, engine.command.Command command, String[] args) {
+                events.add("preParse " + String.join(" ", args));
+            }
+
+            @Override
+            public void onPostParse(CommandSender sender, engine.command.Command command, CommandNode node, LinkedContext context) {
+                events.add("postParse " + context.size());
+            }
+
+            @Override
+            public void onPrePermission(CommandSender sender, engine.command.Command command, CommandNode node) {
+                events.add("prePermission");
+            }
+
+            @Override
+            public void onPreExecute(CommandSender sender, engine.command.Command command, CommandExecution execution) {
+                events.add("preExecute");
+            }
+
+            @Override
+            public void onPostExecute(CommandSender sender, engine.command.Command command, CommandExecution execution, Object value, Exception exception) {
+                events.add("postExecute " + value);
+            }
+        };
+        commandManager.addListener(listener);
+        TestSender sender = new TestSender("listener", null, failure -> {
+        });
+
+        commandManager.execute(sender, "add 1 2");
+        Assertions.assertEquals(List.of("preParse 1 2", "postParse 2", "prePermission", "preExecute", "postExecute 3"), events);
+        events.clear();
+        commandManager.execute(sender, "add 1", new CommandResult());
+        Assertions.assertEquals(List.of("preParse 1", "postParse 1"), events);
+
+        commandManager.removeListener(listener);
+        ((NodeAnnotationCommand) commandManager.getCommand("add").orElseThrow()).addListener(listener);
+        events.clear();
+        commandManager.execute(sender, "add 1 2");
+        Assertions.assertEquals(List.of("postParse 2", "prePermission"), events);
+    }
+
+    public static class CostHandler {
+
+        private int executed;
+
+        @Cost(3)
+        @Command("heavy")
+        public void heavy(int i) {
+            executed++;
+        }
+
+        @Command("light")
+        public void light(String s) {
+            executed++;
+        }
+    }
+
+    @Test
+    void rateLimiter() {
+        SimpleCommandManager commandManager = new SimpleCommandManager();
+        CostHandler handler = new CostHandler();
+        MethodAnnotationCommand.getBuilder(commandManager)
+                .addCommandHandler(handler)
+                .register();
+        Assertions.assertEquals(3, commandManager.getCommand("heavy").orElseThrow().getCost());
+        Assertions.assertEquals(1, commandManager.getCommand("light").orElseThrow().getCost());
+        //几乎不恢复, 结果与执行速度无关
+        CommandRateLimiter rateLimiter = new CommandRateLimiter(5, 0.001, 2, 0.001);
+        commandManager.setRateLimiter(rateLimiter);
+        List<CommandFailure> failures = new ArrayList<>();
+        TestSender sender = new TestSender("limited", null, failures::add);
+
+        commandManager.execute(sender, "heavy 1");
+        commandManager.execute(sender, "heavy 1");
+        Assertions.assertEquals(1, handler.executed);
+        Assertions.assertEquals(CommandFailure.Type.THROTTLED, failures.get(0).getType());
+        Assertions.assertTrue(((Duration) failures.get(0).getMessage()).toSeconds() > 0);
+        Assertions.assertTrue(commandManager.execute(sender, "light a", new CommandResult()).isSuccess());
+        Assertions.assertTrue(commandManager.execute(sender, "light a", new CommandResult()).isSuccess());
+        Assertions.assertEquals(CommandFailure.Type.THROTTLED, commandManager.execute(sender, "light a", new CommandResult()).getFailure());
+        Assertions.assertEquals(3, handler.executed);
+
+        //建议有单独的预算
+        Assertions.assertTrue(commandManager.checkLastArgument(sender, "light a").isValid());
+        Assertions.assertTrue(commandManager.checkLastArgument(sender, "light a").isValid());
+        Assertions.assertFalse(commandManager.checkLastArgument(sender, "light a").isValid());
+        Assertions.assertFalse(commandManager.checkLastArgument(sender, "heavy 1").isValid());
+
+        TestSender other = new TestSender("other", null, failures::add);
+        Assertions.assertTrue(commandManager.execute(other, "heavy 1", new CommandResult()).isSuccess());
+        rateLimiter.setExemption(s -> s == sender);
+        Assertions.assertTrue(commandManager.execute(sender, "heavy 1", new CommandResult()).isSuccess());
+
+        commandManager.setRateLimiter(null);
+        Assertions.assertTrue(commandManager.execute(other, "heavy 1", new CommandResult()).isSuccess());
+    }
+
+    public static class ScriptHandler {
+
+        private final List<String> echoed = new CopyOnWriteArrayList<>();
+        private final AtomicInteger counted = new AtomicInteger();
+
+        @Command("echo")
+        public void echo(String a, String b) {
+            echoed.add(a + "|" + b);
+        }
+
+        @AsyncSafe
+        @Command("count")
+        public void count(String s) {
+            counted.incrementAndGet();
+        }
+    }
+
+    @Test
+    void suggestionCache() {
+        SimpleCommandManager commandManager = new SimpleCommandManager();
+        commandManager.setSuggestionCache(new SuggestionCache(100, Duration.ofMinutes(1)));
+        AtomicInteger calls = new AtomicInteger();
+        SimpleCommand command = new SimpleCommand("cache");
+        command.setCompleter((sender, c, args) -> {
+            calls.incrementAndGet();
+            return List.of("apple", "banana");
+        });
+        commandManager.registerCommand(command);
+        TestSender sender = new TestSender("cache", null, null);
+
+        Assertions.assertEquals(List.of("apple", "banana"), commandManager.complete(sender, "cache", "a"));
+        Assertions.assertEquals(List.of("apple", "banana"), commandManager.complete(sender, "cache", "a"));
+        Assertions.assertEquals(1, calls.get());
+
+        sender.setPermission("cache.admin", true);
+        commandManager.complete(sender, "cache", "a");
+        Assertions.assertEquals(2, calls.get());
+
+        commandManager.registerCommand(new SimpleCommand("other"));
+        commandManager.complete(sender, "cache", "a");
+        Assertions.assertEquals(3, calls.get());
+
+        //"Aa"和"BB"的hashCode相同, 权限map的hashCode也相同
+        TestSender aa = new TestSender("aa", null, null);
+        aa.setPermission("Aa", true);
+        TestSender bb = new TestSender("bb", null, null);
+        bb.setPermission("BB", true);
+        Assertions.assertEquals(aa.permissionSnapshot().hashCode(), bb.permissionSnapshot().hashCode());
+        commandManager.complete(aa, "cache", "a");
+        commandManager.complete(bb, "cache", "a");
+        Assertions.assertEquals(5, calls.get());
+
+        //默认以完整参数为key, suggester收到输入的前缀
+        MethodAnnotationCommand.getBuilder(commandManager)
+                .addCommandHandler(new EnumHandler())
+                .register();
+        Assertions.assertEquals(List.of("A", "B", "C"), commandManager.complete(sender, "enum", ""));
+        Assertions.assertEquals(List.of("B"), commandManager.complete(sender, "enum", "B"));
+        Assertions.assertEquals(2, commandManager.getSuggestionCache().size());
+
+        //开启前缀key后node命令的最后一个参数不是key的一部分
+        commandManager.setSuggestionCache(new SuggestionCache(100, Duration.ofMinutes(1), true));
+        Assertions.assertEquals(List.of("A", "B", "C"), commandManager.complete(sender, "enum", ""));
+        Assertions.assertEquals(List.of("B"), commandManager.complete(sender, "enum", "B"));
+        Assertions.assertEquals(1, commandManager.getSuggestionCache().size());
+    }
+
+    @Test
+    void completionSession() {
+        SimpleCommandManager commandManager = new SimpleCommandManager();
+        ArgumentManager argumentManager = new SimpleArgumentManager();
+        AtomicInteger parses = new AtomicInteger();
+        argumentManager.appendArgument(new Argument() {
+            @Override
+            public String getName() {
+                return "counted";
+            }
+
+            @Override
+            public Class responsibleClass() {
+                return String.class;
+            }
+
+            @Override
+            public Optional parse(Context context, String arg) {
+                parses.incrementAndGet();
+                return Optional.of(arg);
+            }
+
+            @Override
+            public Suggester getSuggester() {
+                return (sender, command, args) -> List.of();
+            }
+        });
+        MethodAnnotationCommand.getBuilder(commandManager)
+                .setArgumentManager(argumentManager)
+                .addCommandHandler(new SessionHandler())
+                .register();
+        TestSender sender = new TestSender("session", null, null);
+        List<String> tips = commandManager.getTips(sender, "session foo B");
+        parses.set(0);
+        CompletionSession session = commandManager.createCompletionSession(sender);
+
+        Assertions.assertEquals(List.of("session"), session.complete("sess"));
+        Assertions.assertEquals(List.of("A", "B", "C"), session.complete("session foo "));
+        Assertions.assertEquals(1, parses.get());
+
+        //只有最后一个参数变化时复用之前的解析
+        Assertions.assertEquals(List.of("B"), session.complete("session foo B"));
+        Assertions.assertEquals(tips, session.getTips("session foo B"));
+        Assertions.assertTrue(session.checkLastArgument("session foo B").isValid());
+        Assertions.assertFalse(session.checkLastArgument("session foo D").isValid());
+        Assertions.assertEquals(1, parses.get());
+
+        //修改前面的参数时重新解析
+        Assertions.assertEquals(List.of("C"), session.complete("session bar C"));
+        Assertions.assertEquals(2, parses.get());
+        commandManager.invalidateSuggestions();
+        Assertions.assertEquals(List.of("C"), session.complete("session bar C"));
+        Assertions.assertEquals(3, parses.get());
+    }
+
+    @Test
+    void analyze() {
+        SimpleCommandManager commandManager = new SimpleCommandManager();
+        MethodAnnotationCommand.getBuilder(commandManager)
+                .addCommandHandler(new EnumHandler())
+                .register();
+        TestSender sender = new TestSender("analyze", null, null);
+
+        for (String line : List.of("en", "enum", "enum ", "enum B", "enum D", "enum A B")) {
+            CommandAnalysis analysis = commandManager.analyze(sender, line);
+            Assertions.assertEquals(commandManager.complete(sender, line), analysis.getSuggestions(), line);
+            Assertions.assertEquals(commandManager.getTips(sender, line), analysis.getTips(), line);
+            Assertions.assertEquals(commandManager.checkLastArgument(sender, line).isValid(), analysis.getArgumentCheck().isValid(), line);
+        }
+        CompletionSession session = commandManager.createCompletionSession(sender);
+        Assertions.assertEquals(List.of("B"), session.analyze("enum B").getSuggestions());
+        Assertions.assertFalse(session.analyze("enum D").getArgumentCheck().isValid());
+    }
+
+    public static class SessionHandler {
+
+        @Command("session")
+        public void session(@ArgumentHandler("counted") String name, TestEnum value) {
+        }
+    }
+
+    public static class EnumHandler {
+
+        @Command("enum")
+        public void select(TestEnum value) {
+        }
+    }
+}
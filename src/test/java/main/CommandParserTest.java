@@ -0,0 +1,42 @@
+package main;
+
+import engine.command.CommandParser;
+import engine.command.impl.DefaultCommandParser;
+import engine.command.util.CommandTokens;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CommandParserTest {
+
+    private final DefaultCommandParser parser = new DefaultCommandParser();
+
+    @Test
+    void parse() {
+        CommandParser.Result result = parser.parse("say \"hello world\" a\\\"b c\\\\d");
+        Assertions.assertEquals("say", result.getName());
+        Assertions.assertArrayEquals(new String[]{"hello world", "a\"b", "c\\d"}, result.getArgs());
+
+        result = parser.parse("tp　1 2 ");
+        Assertions.assertEquals("tp", result.getName());
+        Assertions.assertArrayEquals(new String[]{"1", "2", ""}, result.getArgs());
+
+        result = parser.parse("money");
+        Assertions.assertEquals("money", result.getName());
+        Assertions.assertEquals(0, result.getArgs().length);
+    }
+
+    @Test
+    void tokenize() {
+        CommandTokens tokens = new CommandTokens(1, 1);
+        parser.tokenize("location 11 \"hello world\" 4", tokens);
+        Assertions.assertEquals(4, tokens.size());
+        Assertions.assertTrue(tokens.contentEquals(0, "location"));
+        Assertions.assertTrue(tokens.startsWith(2, "hello"));
+        Assertions.assertEquals("hello world", tokens.get(2).toString());
+        Assertions.assertEquals("world", tokens.get(2).subSequence(6, 11).toString());
+
+        parser.tokenize("a", tokens);
+        Assertions.assertEquals(1, tokens.size());
+        Assertions.assertEquals("a", tokens.getString(0));
+    }
+}
@@ -0,0 +1,40 @@
+package main;
+
+import engine.command.util.StringArgs;
+import engine.command.util.node.EnumNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class EnumNodeTest {
+
+    enum Mode {
+        SURVIVAL, SPECTATOR, CREATIVE, creative
+    }
+
+    @Test
+    void parse() {
+        EnumNode exact = new EnumNode(Mode.class);
+        Assertions.assertEquals(Mode.SURVIVAL, parse(exact, "SURVIVAL"));
+        Assertions.assertNull(parse(exact, "survival"));
+        Assertions.assertNull(parse(exact, "SURV"));
+        Assertions.assertEquals(List.of("SURVIVAL", "SPECTATOR", "CREATIVE", "creative"), exact.getSuggester().suggest(null, null, null));
+
+        EnumNode lenient = new EnumNode(Mode.class, true, true);
+        Assertions.assertEquals(Mode.SURVIVAL, parse(lenient, "survival"));
+        Assertions.assertEquals(Mode.SURVIVAL, parse(lenient, "su"));
+        Assertions.assertEquals(Mode.SPECTATOR, parse(lenient, "Sp"));
+        //只差大小写的名字必须精确输入
+        Assertions.assertEquals(Mode.creative, parse(lenient, "creative"));
+        Assertions.assertEquals(Mode.CREATIVE, parse(lenient, "CREATIVE"));
+        Assertions.assertNull(parse(lenient, "Creative"));
+        Assertions.assertNull(parse(lenient, "cr"));
+        Assertions.assertNull(parse(lenient, "s"));
+        Assertions.assertNull(parse(lenient, ""));
+    }
+
+    private static Object parse(EnumNode node, String arg) {
+        return node.parse(null, new StringArgs(new String[]{arg})).getValue();
+    }
+}
@@ -2,13 +2,18 @@ package main;
 
 import engine.permission.HashPermissible;
 import engine.permission.Permissible;
+import engine.permission.PermissionSnapshot;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HashPermissibleTest {
@@ -33,6 +38,23 @@ public class HashPermissibleTest {
         parentTestPermissions.stream().filter(s->s.indexOf('.')<=0).forEach(s-> assertFalse(permissible2.hasPermission(s)));
     }
 
+    @Test
+    public void snapshotTest() {
+        HashPermissible permissible = new HashPermissible();
+        permissible.setPermission("a", true);
+        PermissionSnapshot snapshot = permissible.permissionSnapshot();
+        assertSame(snapshot, permissible.permissionSnapshot());
+
+        permissible.setPermission("b", false);
+        PermissionSnapshot changed = permissible.permissionSnapshot();
+        assertNotSame(snapshot, changed);
+        assertEquals(Map.of("a", true, "b", false), changed.getPermissions());
+
+        permissible.removePermission("b");
+        assertEquals(snapshot, permissible.permissionSnapshot());
+        assertEquals(snapshot.hashCode(), permissible.permissionSnapshot().hashCode());
+    }
+
     private List<String> getRandomPermissions(){
         ArrayList<String> permission = new ArrayList<>();
         Random random = new Random(System.currentTimeMillis());
@@ -2,6 +2,7 @@ package main;
 
 import engine.command.BaseCommandManager;
 import engine.command.CommandFailure;
+import engine.command.CommandResult;
 import engine.command.CommandSender;
 import engine.command.anno.*;
 import engine.command.argument.Argument;
@@ -12,12 +13,19 @@ import engine.command.suggestion.NamedSuggester;
 import engine.command.suggestion.SimpleSuggesterManager;
 import engine.command.suggestion.Suggester;
 import engine.command.suggestion.SuggesterManager;
+import engine.command.util.CommandNodeUtil;
 import engine.command.util.SuggesterHelper;
+import engine.command.util.asm.InvokerMode;
+import engine.command.util.context.ArrayLinkedContext;
 import engine.command.util.context.Context;
+import engine.command.util.node.CommandNode;
+import engine.command.util.node.CompiledNodeTree;
+import engine.command.util.node.Nodeable;
 import engine.permission.HashPermissible;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
 
 
@@ -309,6 +317,185 @@ public class MethodNodeCommandTest {
         Assertions.assertEquals(message, "100.0");
     }
 
+    @Test
+    void compileTest() {
+        HashMap<String, TestSender> entityHashMap = new HashMap<>();
+        entityHashMap.put("asd", new TestSender("asd", null, null));
+
+        BaseCommandManager commandManager = new SimpleCommandManager();
+        ArgumentManager argumentManager = new SimpleArgumentManager();
+        argumentManager.setClassDefaultArgument(new Argument() {
+            @Override
+            public String getName() {
+                return "TestSender";
+            }
+
+            @Override
+            public Class responsibleClass() {
+                return TestSender.class;
+            }
+
+            @Override
+            public Optional parse(Context context, String arg) {
+                return Optional.ofNullable(entityHashMap.get(arg));
+            }
+
+            @Override
+            public Suggester getSuggester() {
+                return null;
+            }
+        });
+
+        NodeAnnotationCommand.METHOD.getBuilder(commandManager)
+                .setArgumentManager(argumentManager)
+                .setCompile(true)
+                .addCommandHandler(new moneyTest())
+                .register();
+
+        Assertions.assertTrue(((NodeAnnotationCommand) commandManager.getCommand("money").get()).isCompiled());
+
+        commandManager.execute(testSender, "money set 100");
+        commandManager.execute(testSender, "money");
+        Assertions.assertEquals("100.0", message);
+
+        commandManager.execute(testSender, "money set asd 50");
+        commandManager.execute(testSender, "money asd");
+        Assertions.assertEquals("50.0", message);
+
+        commandManager.execute(testSender, "money set");
+        Assertions.assertEquals(CommandFailure.Type.COMMAND_WRONG_USAGE.name(), message);
+    }
+
+    @Test
+    void compiledMatchesTreeWalk() {
+        HashMap<String, TestSender> entityHashMap = new HashMap<>();
+        entityHashMap.put("asd", new TestSender("asd", null, null));
+        entityHashMap.put("123", new TestSender("123", null, null));
+
+        ArgumentManager argumentManager = new SimpleArgumentManager();
+        argumentManager.setClassDefaultArgument(new Argument() {
+            @Override
+            public String getName() {
+                return "TestSender";
+            }
+
+            @Override
+            public Class responsibleClass() {
+                return TestSender.class;
+            }
+
+            @Override
+            public Optional parse(Context context, String arg) {
+                return Optional.ofNullable(entityHashMap.get(arg));
+            }
+
+            @Override
+            public Suggester getSuggester() {
+                return null;
+            }
+        });
+
+        BaseCommandManager walked = new SimpleCommandManager();
+        BaseCommandManager compiled = new SimpleCommandManager();
+        for (BaseCommandManager commandManager : Arrays.asList(walked, compiled)) {
+            NodeAnnotationCommand.METHOD.getBuilder(commandManager)
+                    .setArgumentManager(argumentManager)
+                    .setCompile(commandManager == compiled)
+                    .addCommandHandler(new moneyTest())
+                    .addCommandHandler(new CommandTest())
+                    .addCommandHandler(new test2())
+                    .addCommandHandler(new TieHandler())
+                    .addCommandHandler(new InvokerTestClass())
+                    .register();
+        }
+
+        String[] lines = {
+                "money", "money asd", "money zxc", "money set", "money set 100", "money set asd", "money set asd 100",
+                "money set zxc 100", "money set asd 1 2", "money asd 1",
+                "command", "command a", "command a b", "command b", "command a b c",
+                "test", "test asd", "test asd 123", "test 100", "test zxc", "test asd 123 1",
+                "tie", "tie a", "tie a b", "tie a b c",
+                "invoke", "invoke 3", "invoke x", "invoke 1 2.5", "invoke 1 2.5 true text", "invoke 1 2.5 true text more"
+        };
+        for (String line : lines) {
+            message = null;
+            CommandResult expected = walked.execute(testSender, line, new CommandResult());
+            String expectedMessage = message;
+            message = null;
+            CommandResult actual = compiled.execute(testSender, line, new CommandResult());
+            Assertions.assertEquals(expected.getFailure(), actual.getFailure(), line);
+            Assertions.assertEquals(nodePath(expected.getNode()), nodePath(actual.getNode()), line);
+            Assertions.assertEquals(expected.getValue(), actual.getValue(), line);
+            Assertions.assertEquals(expectedMessage, message, line);
+        }
+    }
+
+    @Test
+    void compiledTreeUnreachable() throws InterruptedException {
+        BaseCommandManager commandManager = new SimpleCommandManager();
+        NodeAnnotationCommand.METHOD.getBuilder(commandManager)
+                .setCompile(true)
+                .addCommandHandler(new TieHandler())
+                .register();
+        NodeAnnotationCommand command = (NodeAnnotationCommand) commandManager.getCommand("tie").get();
+
+        CompiledNodeTree tree = CompiledNodeTree.compile(command.getNode());
+        ArrayLinkedContext context = ArrayLinkedContext.acquire(testSender);
+        Assertions.assertNotNull(tree.match(context, new String[]{"a", "b"}));
+        context.release();
+        //匹配过的树在重新编译后不能被线程缓存持有
+        WeakReference<CompiledNodeTree> reference = new WeakReference<>(tree);
+        tree = null;
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assertions.assertNull(reference.get());
+    }
+
+    //两个管理器的节点不同, 用从根开始的子节点序号比较
+    private List<Integer> nodePath(CommandNode node) {
+        if (node == null)
+            return null;
+        List<Integer> path = new ArrayList<>();
+        for (; node.getParent() != null; node = node.getParent()) {
+            path.add(0, new ArrayList<>(node.getParent().getChildren()).indexOf(node));
+        }
+        return path;
+    }
+
+    @Test
+    void invokerTest() {
+        for (InvokerMode mode : InvokerMode.values()) {
+            BaseCommandManager commandManager = new SimpleCommandManager();
+            NodeAnnotationCommand.METHOD.getBuilder(commandManager)
+                    .setInvokerMode(mode)
+                    .addCommandHandler(new InvokerTestClass())
+                    .register();
+
+            commandManager.execute(testSender, "invoke 1 2.5 true text");
+            Assertions.assertEquals(testSender.getSenderName() + 1 + 2.5 + true + "text", message);
+            commandManager.execute(testSender, "invoke 3");
+            Assertions.assertEquals("3", message);
+
+            CommandNode leaf = CommandNodeUtil.getAllLeafNode(((Nodeable) commandManager.getCommand("invoke").get()).getNode()).iterator().next();
+            Assertions.assertEquals(mode == InvokerMode.GENERATED, leaf.getExecutor().getClass().getName().contains("$$CapInvoker$"));
+        }
+    }
+
+    public class InvokerTestClass {
+        @Command("invoke")
+        public void invoke(@Sender CommandSender sender, int i, double d, boolean b, String s) {
+            message = sender.getSenderName() + i + d + b + s;
+        }
+
+        @Command("invoke")
+        public long invoke(long l) {
+            message = Long.toString(l);
+            return l;
+        }
+    }
+
     public class moneyTest {
 
         @Command("money")
@@ -406,6 +593,36 @@ public class MethodNodeCommandTest {
 
     }
 
+    @Test
+    void overloadTieBreak() {
+        //结果节点深度相同时不能依赖HashMap顺序, 多次注册以覆盖不同的identity hash
+        for (int i = 0; i < 32; i++) {
+            BaseCommandManager commandManager = new SimpleCommandManager();
+            NodeAnnotationCommand.METHOD.getBuilder(commandManager)
+                    .addCommandHandler(new TieHandler())
+                    .register();
+
+            message = null;
+            commandManager.execute(testSender, "tie a b");
+            Assertions.assertEquals("two a b", message);
+            commandManager.execute(testSender, "tie a");
+            Assertions.assertEquals("one a", message);
+        }
+    }
+
+    public class TieHandler {
+
+        @Command("tie")
+        public void one(@Sender TestSender sender, String s) {
+            message = "one " + s;
+        }
+
+        @Command("tie")
+        public void two(String a, String b) {
+            message = "two " + a + " " + b;
+        }
+    }
+
     @Test
     public void teleportTest() {
         HashMap<String, TestSender> entityHashMap = new HashMap<>();
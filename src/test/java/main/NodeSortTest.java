@@ -4,8 +4,11 @@ import engine.command.CommandSender;
 import engine.command.argument.base.IntegerArgument;
 import engine.command.argument.base.StringArgument;
 import engine.command.util.node.*;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 public class NodeSortTest {
 
     @Test
@@ -40,5 +43,54 @@ public class NodeSortTest {
 
     }
 
+    @Test
+    void literalIndex() {
+        EmptyArgumentNode root = new EmptyArgumentNode();
+        RequiredNode ban = new RequiredNode("ban");
+        RequiredNode kick = new RequiredNode("kick");
+        ArgumentNode integer = new ArgumentNode(new IntegerArgument());
+        EnumNode enumNode = new EnumNode(TestEnum.class);
+        root.addChild(integer);
+        root.addChild(ban);
+        root.addChild(enumNode);
+        root.addChild(kick);
+
+        Assertions.assertEquals(List.of(ban, kick, enumNode, integer), List.copyOf(root.getChildren()));
+        Assertions.assertEquals(List.of(kick), root.getCandidateChildren("kick"));
+        Assertions.assertEquals(List.of(enumNode, integer), root.getCandidateChildren("mute"));
+        Assertions.assertEquals(List.of(ban, kick, enumNode, integer), root.getCandidateChildren(null));
+        Assertions.assertTrue(root.hasMismatchedLiteral("kick"));
+
+        root.removeChild(ban);
+        Assertions.assertEquals(List.of(enumNode, integer), root.getCandidateChildren("ban"));
+        Assertions.assertFalse(root.hasMismatchedLiteral("kick"));
+    }
+
+    @Test
+    void treeMetrics() {
+        TestSender sender = new TestSender("metrics", null, null);
+        EmptyArgumentNode root = new EmptyArgumentNode();
+        RequiredNode ban = new RequiredNode("ban");
+        ArgumentNode target = new ArgumentNode(new StringArgument());
+        target.setPermissionExpression("admin.ban");
+        ban.addChild(target);
+        Assertions.assertEquals(1, target.getDepth());
+        Assertions.assertEquals(List.of(target), ban.getLeaves());
+        Assertions.assertFalse(ban.hasAnyLeafPermission(sender));
 
+        root.addChild(ban);
+        Assertions.assertEquals(2, target.getDepth());
+        Assertions.assertEquals(2, target.getRequiredArgsSum());
+        Assertions.assertSame(root, target.getTopParent());
+        Assertions.assertEquals(List.of(target), root.getLeaves());
+
+        RequiredNode help = new RequiredNode("help");
+        root.addChild(help);
+        Assertions.assertEquals(List.of(target, help), root.getLeaves());
+        Assertions.assertTrue(root.hasAnyLeafPermission(sender));
+        root.removeChild(help);
+        Assertions.assertFalse(root.hasAnyLeafPermission(sender));
+        target.setPermissionExpression(null);
+        Assertions.assertTrue(root.hasAnyLeafPermission(sender));
+    }
 }
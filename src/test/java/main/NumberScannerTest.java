@@ -0,0 +1,58 @@
+package main;
+
+import engine.command.util.NumberScanner;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class NumberScannerTest {
+
+    private static final List<String> INPUTS = List.of("0", "-0", "+7", "123", "-123", "2147483647", "2147483648",
+            "-2147483648", "-2147483649", "9223372036854775807", "9223372036854775808", "-9223372036854775808",
+            "32767", "-32769", "", "-", "+", "1a", "a", " 1", "1 ", "1.5", "--1", "1e3", "١٢");
+
+    @Test
+    void integer() {
+        for (String input : INPUTS) {
+            Assertions.assertEquals(parseInt(input) != null, NumberScanner.isInteger(input, 10, Integer.MIN_VALUE, Integer.MAX_VALUE), input);
+            if (parseInt(input) != null)
+                Assertions.assertEquals((long) parseInt(input), NumberScanner.parseInteger(input, 10), input);
+            Assertions.assertEquals(parseLong(input) != null, NumberScanner.isInteger(input, 10, Long.MIN_VALUE, Long.MAX_VALUE), input);
+            if (parseLong(input) != null)
+                Assertions.assertEquals((long) parseLong(input), NumberScanner.parseInteger(input, 10), input);
+        }
+        Assertions.assertTrue(NumberScanner.isInteger("-7f", 16, Long.MIN_VALUE, Long.MAX_VALUE));
+        Assertions.assertEquals(-0x7f, NumberScanner.parseInteger("-7f", 16));
+        Assertions.assertFalse(NumberScanner.isInteger("0", 10, 1, 10));
+        Assertions.assertFalse(NumberScanner.isInteger("11", 10, 1, 10));
+        Assertions.assertTrue(NumberScanner.isInteger("-3", 10, -5, -1));
+    }
+
+    @Test
+    void decimal() {
+        for (String input : List.of("1", "-1.5", "+.5", "5.", "1e10", "1.5E-3", "2f", "3.0D", "NaN", "-Infinity", "1e400")) {
+            Assertions.assertTrue(NumberScanner.isDecimal(input), input);
+            Double.parseDouble(input);
+        }
+        for (String input : List.of("", ".", "-", "e5", "1e", "1e+", "1.5.2", "1ff", "abc", "nan", "1,5")) {
+            Assertions.assertFalse(NumberScanner.isDecimal(input), input);
+        }
+    }
+
+    private static Integer parseInt(String s) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long parseLong(String s) {
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package main;
+
+import engine.permission.HashPermissible;
+import engine.permission.Permissible;
+import engine.permission.PermissionExpression;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PermissionExpressionTest {
+
+    @Test
+    void expressionTest() {
+        Permissible permissible = new HashPermissible();
+        permissible.setPermission("player.location", true);
+        permissible.setPermission("player.teleport", true);
+
+        Assertions.assertTrue(PermissionExpression.compile("player.admin | player.location & player.teleport").test(permissible));
+        Assertions.assertFalse(PermissionExpression.compile("player.admin | player.location & !player.teleport").test(permissible));
+        Assertions.assertFalse(PermissionExpression.compile("(player.admin | player.location) & player.muted").test(permissible));
+        Assertions.assertTrue(PermissionExpression.compile("!player.admin & player.location").test(permissible));
+        Assertions.assertTrue(PermissionExpression.compile("!(player.admin | player.muted)").test(permissible));
+
+        Assertions.assertSame(PermissionExpression.compile("a & b"), PermissionExpression.compile("a & b"));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PermissionExpression.compile("a & (b | c"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PermissionExpression.compile("a | "));
+    }
+
+    @Test
+    void shortCircuitTest() {
+        List<String> checked = new ArrayList<>();
+        Permissible permissible = new HashPermissible() {
+            @Override
+            public boolean hasPermission(String permission) {
+                checked.add(permission);
+                return super.hasPermission(permission);
+            }
+        };
+        permissible.setPermission("a", true);
+
+        Assertions.assertTrue(PermissionExpression.compile("a | b | c").test(permissible));
+        Assertions.assertEquals(List.of("a"), checked);
+    }
+}
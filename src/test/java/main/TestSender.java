@@ -3,6 +3,7 @@ package main;
 import engine.command.CommandFailure;
 import engine.command.CommandSender;
 import engine.permission.HashPermissible;
+import engine.permission.PermissionSnapshot;
 
 import java.util.Map;
 import java.util.function.Consumer;
@@ -66,6 +67,11 @@ public class TestSender implements CommandSender {
         return permissible.toPermissionMap();
     }
 
+    @Override
+    public PermissionSnapshot permissionSnapshot() {
+        return permissible.permissionSnapshot();
+    }
+
     @Override
     public String toString() {
         return "TestSender{" +
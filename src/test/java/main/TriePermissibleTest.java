@@ -0,0 +1,45 @@
+package main;
+
+import engine.permission.Permissible;
+import engine.permission.TriePermissible;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TriePermissibleTest {
+
+    @Test
+    public void permissibleTest() {
+        Permissible permissible = new TriePermissible();
+        permissible.setPermission("player", true);
+        permissible.setPermission("player.admin", false);
+        permissible.setPermission("world.*", true);
+        permissible.setPermission("world.edit.*", false);
+        permissible.setPermission("world.edit.own", true);
+
+        assertTrue(permissible.hasPermission("player"));
+        assertTrue(permissible.hasPermission("player.teleport"));
+        assertFalse(permissible.hasPermission("player.admin"));
+        assertFalse(permissible.hasPermission("player.admin.kick"));
+        assertFalse(permissible.hasPermission("world"));
+        assertTrue(permissible.hasPermission("world.build"));
+        assertTrue(permissible.hasPermission("world.edit"));
+        assertFalse(permissible.hasPermission("world.edit.other"));
+        assertTrue(permissible.hasPermission("world.edit.own.house"));
+        assertFalse(permissible.hasPermission("other"));
+
+        assertEquals(Map.of("player", true, "player.admin", false, "world.*", true, "world.edit.*", false, "world.edit.own", true),
+                permissible.toPermissionMap());
+
+        permissible.removePermission("player.admin");
+        assertTrue(permissible.hasPermission("player.admin"));
+        permissible.removePermission("world.edit.own");
+        assertFalse(permissible.hasPermission("world.edit.own"));
+
+        permissible.clearPermission();
+        assertFalse(permissible.hasPermission("player"));
+        assertTrue(permissible.toPermissionMap().isEmpty());
+    }
+}
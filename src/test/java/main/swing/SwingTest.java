@@ -4,6 +4,7 @@ import engine.command.ArgumentCheckResult;
 import engine.command.BaseCommandManager;
 import engine.command.CommandManager;
 import engine.command.CommandParser;
+import engine.command.CompletionSession;
 import engine.command.anno.MethodAnnotationCommand;
 import engine.command.argument.ArgumentManager;
 import engine.command.argument.SimpleArgumentManager;
@@ -31,6 +32,7 @@ public class SwingTest {
     private SuggesterManager suggesterManager = new SimpleSuggesterManager();
     private ArgumentManager argumentManager = new SimpleArgumentManager();
     private ConsoleSender consoleSender = new ConsoleSender();
+    private CompletionSession completionSession = commandManager.createCompletionSession(consoleSender);
     private EntityManager entityManager = new EntityManager();
 
     private CommandParser resolve;
@@ -144,7 +146,7 @@ public class SwingTest {
                 String text = textField.getText().substring(1);
                 CommandParser.Result result = resolve.parse(text);
                 if (result.getName() != null && result.getArgs().length != 0) {
-                    List<String> tips = commandManager.getTips(consoleSender, result.getName(), result.getArgs());
+                    List<String> tips = completionSession.getTips(text);
                     String tipsString = tips.stream().map(str -> "<" + str + "> ").collect(Collectors.joining());
                     String space = getSpace("/" + result.getName() + " " + Arrays.stream(Arrays.copyOfRange(result.getArgs(), 0, result.getArgs().length - 1)).map(str -> str + " ").collect(Collectors.joining()) + " ");
                     label.setText(space + tipsString);